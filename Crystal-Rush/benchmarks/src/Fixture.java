@@ -0,0 +1,183 @@
+import java.io.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bot positioned at a given turn of a recorded local game, with the hot paths
+ * benchmarked by bench.BotBenchmark. The benchmarks live in a package, as JMH
+ * requires, so they reach the bot through this class, loaded by name.
+ *
+ * The game is played by the Referee between two default bots and the input of
+ * the first seat is recorded turn by turn, then replayed into a fresh Player
+ * up to the turn of the phase. Paths that parse input alternate the inputs of
+ * that turn and of the previous one, so every call diffs a real turn.
+ */
+public class Fixture {
+	static final long SEED = 7;
+	static final int EARLY = 10, MID = 80, LATE = 160;
+	static final int PLAN_HORIZON = 6, BEAM_WIDTH = 16, PLAN_CANDIDATES = 24;
+
+	private final Replay.Script script = new Replay.Script();
+	private final List<byte[]> turns;
+	private final int turn;
+	private final Player player;
+	private final Coord[] cells;
+	private final TurnClock idle = new TurnClock();
+	private boolean previous;
+	private int next;
+
+	private Fixture(List<byte[]> turns, int turn) {
+		this.turns = turns;
+		this.turn = turn;
+		player = new Player(script, Referee.Feed.QUIET, Referee.Feed.QUIET);
+		for (int t = 0; t < turn; t++) {
+			script.load(turns.get(t));
+			if (t == 0)
+				player.init();
+			player.turn();
+		}
+		cells = new Coord[player.board.cellCount()];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = Coord.of(i % player.board.width, i / player.board.width);
+	}
+
+	// Input of the first seat of a default game, by turn; turn 0 starts with the map size
+	static List<byte[]> record(long seed) {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		new Referee(seed).play(Replay.recorder(log), Referee.DEFAULT_BOT);
+		try {
+			return Replay.load(new ByteArrayInputStream(log.toByteArray()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static int turnOf(String phase) {
+		switch (phase) {
+		case "early":
+			return EARLY;
+		case "mid":
+			return MID;
+		case "late":
+			return LATE;
+		default:
+			throw new IllegalArgumentException("Unknown phase " + phase);
+		}
+	}
+
+	// Loads the input of the phase turn and of the one before, alternately
+	private void nextInput() {
+		script.load(turns.get(previous ? turn - 1 : turn));
+		previous = !previous;
+	}
+
+	private Coord nextCell() {
+		Coord c = cells[next];
+		next = (next + 1) % cells.length;
+		return c;
+	}
+
+	/**
+	 * The named hot path of the bot at the phase turn: board, radarBoard,
+	 * supportUpdate, countOre, calculateVisible, findPos, placeTrap, estimate,
+	 * enemyHotspot, stateCopy, stateApply, digPlan or turn. radarBoard and
+	 * supportUpdate include the parse of board; stateApply copies the
+	 * GameState, then plays the commands of the last turn on it; digPlan
+	 * searches the targets of all the free robots among the known ore. placeTrap
+	 * forgets the enemy holes it scored and collects those of the phase turn
+	 * again before every call, so every call scores them.
+	 */
+	public static Supplier<Object> hotPath(String name, String phase) {
+		List<byte[]> turns = record(SEED);
+		int turn = Math.min(turnOf(phase), turns.size() - 1);
+		Fixture f = new Fixture(turns, turn);
+		Player player = f.player;
+		Support support = player.support;
+		switch (name) {
+		case "board":
+			return () -> {
+				f.nextInput();
+				player.board.update(player.in);
+				return player.board;
+			};
+		case "radarBoard":
+			return () -> {
+				f.nextInput();
+				player.board.update(player.in);
+				support.constructRadarBoard();
+				return support.coverage;
+			};
+		case "supportUpdate":
+			return () -> {
+				f.nextInput();
+				player.board.update(player.in);
+				support.update();
+				return support;
+			};
+		case "countOre":
+			return () -> support.countOre(f.nextCell());
+		case "calculateVisible":
+			return () -> support.calculateVisible(f.nextCell());
+		case "findPos":
+			return () -> support.findPos(f.idle);
+		case "placeTrap":
+			CellSet seen = new CellSet(player.board.width, player.board.height);
+			seen.copyFrom(support.enemyDig);
+			return () -> {
+				support.enemyDig.copyFrom(seen);
+				support.trapPlanner.sync();
+				return support.placeTrap(f.idle);
+			};
+		case "estimate":
+			return support::estimate;
+		case "enemyHotspot":
+			return () -> support.estimate(player.board.opponentTeam.robots);
+		case "stateCopy":
+			GameState state = new GameState(player.board.width, player.board.height, support.radarArea)
+					.load(player.board, support.coverage);
+			GameState scratch = state.copy();
+			return () -> scratch.copyFrom(state);
+		case "stateApply":
+			GameState current = new GameState(player.board.width, player.board.height, support.radarArea)
+					.load(player.board, support.coverage);
+			GameState next = current.copy();
+			int[] commands = new int[GameState.ROBOTS];
+			int r = 0;
+			for (Entity robot : player.board.myTeam.robots)
+				commands[r++] = GameState.commandOf(robot.action, player.board.width);
+			return () -> {
+				next.copyFrom(current).apply(commands);
+				return next;
+			};
+		case "digPlan":
+			GameState root = new GameState(player.board.width, player.board.height, support.radarArea)
+					.load(player.board, support.coverage);
+			BeamPlanner planner = new BeamPlanner(player.board, support.radarArea, support.travel, PLAN_HORIZON,
+					BEAM_WIDTH);
+			int[] rootCommands = new int[GameState.ROBOTS];
+			boolean[] dig = new boolean[GameState.ROBOTS];
+			int[] previous = new int[GameState.ROBOTS];
+			Arrays.fill(previous, -1);
+			for (int k = 0; k < root.robots; k++)
+				dig[k] = root.robotCell[k] >= 0 && root.robotItem[k] == GameState.NOTHING;
+			int[] candidates = new int[PLAN_CANDIDATES];
+			int count = 0;
+			for (int i = 0; i < player.board.cellCount() && count < candidates.length; i++) {
+				if (player.board.isKnownAt(i) && player.board.oreAt(i) > 0 && !player.board.isHoleAt(i))
+					candidates[count++] = i;
+			}
+			int[] targetOut = new int[GameState.ROBOTS];
+			int candidateCount = count;
+			return () -> planner.plan(root, rootCommands, dig, previous, candidates, candidateCount, targetOut,
+					f.idle);
+		case "turn":
+			return () -> {
+				f.nextInput();
+				player.turn();
+				return player;
+			};
+		default:
+			throw new IllegalArgumentException("Unknown hot path " + name);
+		}
+	}
+}
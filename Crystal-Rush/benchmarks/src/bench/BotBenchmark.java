@@ -0,0 +1,52 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Hot paths of the bot on early, mid and late game fixtures. The bot classes
+ * are in the default package, out of reach of this one: each path is built by
+ * the Fixture class, loaded by name.
+ *
+ * The main method runs them with the GC profiler, which adds the allocation
+ * rate of every path; the JMH command line options are accepted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BotBenchmark {
+	@Param({ "board", "radarBoard", "supportUpdate", "countOre", "calculateVisible", "findPos", "placeTrap",
+			"estimate", "enemyHotspot", "stateCopy", "stateApply", "digPlan", "turn" })
+	public String path;
+
+	@Param({ "early", "mid", "late" })
+	public String phase;
+
+	private Supplier<Object> hotPath;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setUp() throws ReflectiveOperationException {
+		hotPath = (Supplier<Object>) Class.forName("Fixture").getMethod("hotPath", String.class, String.class)
+				.invoke(null, path, phase);
+	}
+
+	@Benchmark
+	public Object run() {
+		return hotPath.get();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build())
+				.run();
+	}
+}
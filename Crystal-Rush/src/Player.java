@@ -8,6 +8,18 @@ import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
 
 class Coord {
+	// Sentinel for dead robots and missing positions
+	static final Coord NONE = new Coord(-1, -1);
+
+	/**
+	 * Canonical instances for every cell of the map, indexed [y][x]. There is
+	 * one table for the whole process, shared by the Players that run in
+	 * parallel in local tournaments: all the maps of the game have the same
+	 * size, and init() refuses another one instead of swapping the table under
+	 * the games already running.
+	 */
+	private static volatile Coord[][] table = new Coord[0][];
+
 	final int x;
 	final int y;
 
@@ -16,12 +28,38 @@ class Coord {
 		this.y = y;
 	}
 
-	Coord(Scanner in) {
-		this(in.nextInt(), in.nextInt());
+	// Builds the canonical instances, called once the map size is known
+	static synchronized void init(int width, int height) {
+		Coord[][] current = table;
+		if (current.length == height && (height == 0 || current[0].length == width))
+			return;
+		if (current.length > 0)
+			throw new IllegalStateException("Coord table built for a " + current[0].length + "x" + current.length
+					+ " map, not " + width + "x" + height);
+		Coord[][] cells = new Coord[height][width];
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				cells[y][x] = new Coord(x, y);
+		table = cells;
+	}
+
+	// Canonical instance for a cell of the map, a new one outside of it
+	static Coord of(int x, int y) {
+		Coord[][] cells = table;
+		if (y >= 0 && y < cells.length && x >= 0 && x < cells[y].length)
+			return cells[y][x];
+		if (x == -1 && y == -1)
+			return NONE;
+		return new Coord(x, y);
+	}
+
+	static Coord read(InputReader in) {
+		int x = in.nextInt();
+		return of(x, in.nextInt());
 	}
 
 	Coord add(Coord other) {
-		return new Coord(x + other.x, y + other.y);
+		return of(x + other.x, y + other.y);
 	}
 
 	// Manhattan distance (for 4 directions maps)
@@ -54,57 +92,114 @@ class Coord {
 	}
 }
 
-class Cell {
-	boolean known;
-	int ore;
-	boolean hole;
+/**
+ * Buffered reader over the referee stream. Tokens are parsed straight from a
+ * reused byte buffer, so reading a turn does not create any object.
+ */
+class InputReader {
+	// Value returned by nextOre() for the '?' marker
+	static final int UNKNOWN = -1;
+
+	private final InputStream stream;
+	private final byte[] buffer = new byte[1 << 16];
+	private int length;
+	private int pointer;
+
+	InputReader(InputStream stream) {
+		this.stream = stream;
+	}
+
+	private int read() {
+		if (pointer == length) {
+			pointer = 0;
+			try {
+				length = stream.read(buffer, 0, buffer.length);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			if (length <= 0) {
+				length = 0;
+				return -1;
+			}
+		}
+		return buffer[pointer++];
+	}
+
+	// Blocks until the next byte of input is available, without consuming it
+	void awaitInput() {
+		if (read() != -1)
+			pointer--;
+	}
 
-	Cell(boolean known, int ore, boolean hole) {
-		this.known = known;
-		this.ore = ore;
-		this.hole = hole;
+	private int skipBlanks() {
+		int c = read();
+		while (c != -1 && c <= ' ')
+			c = read();
+		if (c == -1)
+			throw new NoSuchElementException();
+		return c;
 	}
 
-	Cell(Scanner in) {
-		String oreStr = in.next();
-		if (oreStr.charAt(0) == '?') {
-			known = false;
-			ore = 0;
-		} else {
-			known = true;
-			ore = Integer.parseInt(oreStr);
+	int nextInt() {
+		int c = skipBlanks();
+		boolean negative = (c == '-');
+		if (negative)
+			c = read();
+		int value = 0;
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			c = read();
+		}
+		return negative ? -value : value;
+	}
+
+	// Ore amount of a cell, or UNKNOWN when the cell is not covered by a radar
+	int nextOre() {
+		int c = skipBlanks();
+		if (c == '?') {
+			read();
+			return UNKNOWN;
+		}
+		int value = 0;
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			c = read();
 		}
-		String holeStr = in.next();
-		hole = (holeStr.charAt(0) != '0');
+		return value;
 	}
 }
 
+// Command of a robot for the current turn, overwritten in place; WAIT until set
 class Action {
-	final String command;
-	final Coord pos;
-	final EntityType item;
+	static final String WAIT = "WAIT", MOVE = "MOVE", DIG = "DIG", REQUEST = "REQUEST";
+
+	String command = WAIT;
+	Coord pos;
+	EntityType item;
 	String message;
 
-	private Action(String command, Coord pos, EntityType item) {
+	private Action set(String command, Coord pos, EntityType item) {
 		this.command = command;
 		this.pos = pos;
 		this.item = item;
+		message = null;
+		return this;
 	}
 
-	static Action none() {
-		return new Action("WAIT", null, null);
+	Action none() {
+		return set(WAIT, null, null);
 	}
 
-	static Action move(Coord pos) {
-		return new Action("MOVE", pos, null);
+	Action move(Coord pos) {
+		return set(MOVE, pos, null);
 	}
 
-	static Action dig(Coord pos) {
-		return new Action("DIG", pos, null);
+	Action dig(Coord pos) {
+		return set(DIG, pos, null);
 	}
 
-	static Action request(EntityType item) {
-		return new Action("REQUEST", null, item);
+	Action request(EntityType item) {
+		return set(REQUEST, null, item);
 	}
 
 	public String toString() {
@@ -122,45 +217,334 @@ class Action {
 	}
 }
 
+/**
+ * Commands of the turn, formatted into one reused byte buffer and written to
+ * the output with a single write and flush.
+ */
+class CommandWriter {
+	private byte[] buffer = new byte[256];
+	private int length;
+
+	void write(Action action) {
+		append(action.command);
+		if (action.pos != null)
+			append(' ').append(action.pos.x).append(' ').append(action.pos.y);
+		if (action.item != null)
+			append(' ').append(action.item.name());
+		if (action.message != null)
+			append(' ').append(action.message);
+		append('\n');
+	}
+
+	void flushTo(PrintStream out) {
+		out.write(buffer, 0, length);
+		out.flush();
+		length = 0;
+	}
+
+	private CommandWriter append(char c) {
+		if (length == buffer.length)
+			buffer = Arrays.copyOf(buffer, 2 * length);
+		buffer[length++] = (byte) c;
+		return this;
+	}
+
+	private CommandWriter append(String s) {
+		for (int i = 0; i < s.length(); i++)
+			append(s.charAt(i));
+		return this;
+	}
+
+	private CommandWriter append(int value) {
+		if (value < 0) {
+			append('-');
+			value = -value;
+		}
+		if (value >= 10)
+			append(value / 10);
+		return append((char) ('0' + value % 10));
+	}
+}
+
 enum EntityType {
 	NOTHING, ALLY_ROBOT, ENEMY_ROBOT, RADAR, TRAP, AMADEUSIUM;
 
+	// values() copies the array at every call
+	private static final EntityType[] VALUES = values();
+
 	static EntityType valueOf(int id) {
-		return values()[id + 1];
+		return VALUES[id + 1];
 	}
 }
 
+// Pooled by Board, one instance per id overwritten every turn the entity is seen
 class Entity {
-	private static final Coord DEAD_POS = new Coord(-1, -1);
-
-	// Updated every turn
 	final int id;
-	final EntityType type;
-	final Coord pos;
-	final EntityType item;
+	// Updated every turn
+	EntityType type;
+	Coord pos;
+	EntityType item;
 
 	// Computed for my robots
-	Action action;
+	final Action action = new Action();
+
+	Entity(int id) {
+		this.id = id;
+	}
 
-	Entity(Scanner in) {
-		id = in.nextInt();
+	// Reads the rest of the entity line after its id, the action is reset to WAIT
+	void read(InputReader in) {
 		type = EntityType.valueOf(in.nextInt());
-		pos = new Coord(in);
+		pos = Coord.read(in);
 		item = EntityType.valueOf(in.nextInt());
+		action.none();
 	}
 
+	// Coord.read gives the NONE instance for dead robots
 	boolean isAlive() {
-		return !DEAD_POS.equals(pos);
+		return pos != Coord.NONE;
 	}
 }
 
 class Team {
 	int score;
-	Collection<Entity> robots;
+	// Robots of the turn in input order, refilled in place
+	final List<Entity> robots = new ArrayList<>();
 
-	void readScore(Scanner in) {
+	void readScore(InputReader in) {
 		score = in.nextInt();
-		robots = new ArrayList<>();
+		robots.clear();
+	}
+}
+
+/**
+ * Set of map cells backed by a bitmap, one bit per cell index y * width + x.
+ * Membership tests are a single bit test whatever the size of the set.
+ */
+class CellSet implements Iterable<Coord> {
+	final int width;
+	final int height;
+	private final long[] bits;
+	private int size;
+
+	CellSet(int width, int height) {
+		this.width = width;
+		this.height = height;
+		bits = new long[(width * height + 63) >>> 6];
+	}
+
+	private boolean inside(Coord c) {
+		return c != null && c.x >= 0 && c.y >= 0 && c.x < width && c.y < height;
+	}
+
+	boolean add(Coord c) {
+		return inside(c) && add(c.y * width + c.x);
+	}
+
+	boolean add(int index) {
+		long mask = 1L << index;
+		if ((bits[index >>> 6] & mask) != 0)
+			return false;
+		bits[index >>> 6] |= mask;
+		size++;
+		return true;
+	}
+
+	boolean remove(Coord c) {
+		return inside(c) && remove(c.y * width + c.x);
+	}
+
+	boolean remove(int index) {
+		long mask = 1L << index;
+		if ((bits[index >>> 6] & mask) == 0)
+			return false;
+		bits[index >>> 6] &= ~mask;
+		size--;
+		return true;
+	}
+
+	boolean contains(Coord c) {
+		return inside(c) && contains(c.y * width + c.x);
+	}
+
+	boolean contains(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height && contains(y * width + x);
+	}
+
+	boolean contains(int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	void copyFrom(CellSet other) {
+		System.arraycopy(other.bits, 0, bits, 0, bits.length);
+		size = other.size;
+	}
+
+	void clear() {
+		Arrays.fill(bits, 0L);
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	// First cell index >= from in the set, or -1
+	int nextIndex(int from) {
+		int word = from >>> 6;
+		if (word >= bits.length)
+			return -1;
+		long current = bits[word] & (-1L << from);
+		while (true) {
+			if (current != 0)
+				return (word << 6) + Long.numberOfTrailingZeros(current);
+			if (++word == bits.length)
+				return -1;
+			current = bits[word];
+		}
+	}
+
+	Coord coord(int index) {
+		return Coord.of(index % width, index / width);
+	}
+
+	public Iterator<Coord> iterator() {
+		return new Iterator<Coord>() {
+			int next = nextIndex(0);
+
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			public Coord next() {
+				if (next < 0)
+					throw new NoSuchElementException();
+				Coord c = coord(next);
+				next = nextIndex(next + 1);
+				return c;
+			}
+		};
+	}
+}
+
+/**
+ * Cells within a Manhattan range of every cell of the map, precomputed once
+ * per board size as lists of cell indexes clipped to the map. Besides the full
+ * diamond, each cell has the four half diamonds on its UP, DOWN, LEFT and
+ * RIGHT side; every half includes the dividing axis exactly once.
+ */
+class Neighborhood {
+	static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+	private final int[][] diamond;
+	private final int[][][] quadrants;
+
+	Neighborhood(int width, int height, int range) {
+		int cells = width * height;
+		diamond = new int[cells][];
+		quadrants = new int[4][cells][];
+		int[] buffer = new int[(2 * range + 1) * (2 * range + 1)];
+		int[] dxs = new int[buffer.length];
+		int[] dys = new int[buffer.length];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int count = 0;
+				for (int dy = -range; dy <= range; dy++) {
+					int span = range - abs(dy);
+					for (int dx = -span; dx <= span; dx++) {
+						if (x + dx >= 0 && x + dx < width && y + dy >= 0 && y + dy < height) {
+							buffer[count] = (y + dy) * width + x + dx;
+							dxs[count] = dx;
+							dys[count] = dy;
+							count++;
+						}
+					}
+				}
+				int index = y * width + x;
+				diamond[index] = Arrays.copyOf(buffer, count);
+				for (int direction = 0; direction < 4; direction++) {
+					int[] half = new int[count];
+					int halfCount = 0;
+					for (int k = 0; k < count; k++) {
+						if (inHalf(direction, dxs[k], dys[k]))
+							half[halfCount++] = buffer[k];
+					}
+					quadrants[direction][index] = Arrays.copyOf(half, halfCount);
+				}
+			}
+		}
+	}
+
+	private static boolean inHalf(int direction, int dx, int dy) {
+		switch (direction) {
+		case UP:
+			return dy <= 0;
+		case DOWN:
+			return dy >= 0;
+		case LEFT:
+			return dx <= 0;
+		default:
+			return dx >= 0;
+		}
+	}
+
+	int[] diamond(int index) {
+		return diamond[index];
+	}
+
+	int[] quadrant(int index, int direction) {
+		return quadrants[direction][index];
+	}
+}
+
+/**
+ * Turns a robot needs to move, precomputed for every pair of cells: reach()
+ * to get next to a cell and dig it, home() to get back to the HQ column.
+ * Robots move up to MOVE_RANGE cells a turn.
+ */
+class TravelTimes {
+	static final int MOVE_RANGE = 4;
+
+	private final int cells;
+	private final byte[] reach;
+	private final byte[] home;
+
+	TravelTimes(int width, int height) {
+		cells = width * height;
+		reach = new byte[cells * cells];
+		home = new byte[cells];
+		for (int from = 0; from < cells; from++) {
+			int fx = from % width;
+			int fy = from / width;
+			home[from] = (byte) turns(fx);
+			for (int to = 0; to < cells; to++) {
+				int distance = abs(fx - to % width) + abs(fy - to / width);
+				reach[from * cells + to] = (byte) turns(max(0, distance - 1));
+			}
+		}
+	}
+
+	private static int turns(int distance) {
+		return (distance + MOVE_RANGE - 1) / MOVE_RANGE;
+	}
+
+	// Turns to get within digging distance of a cell
+	int reach(int from, int to) {
+		return reach[from * cells + to];
+	}
+
+	// Turns to get back to the HQ column
+	int home(int cell) {
+		return home[cell];
+	}
+
+	// Turns to reach a cell, dig its ore and deliver it
+	int roundTrip(int from, int target) {
+		return reach(from, target) + 1 + home(target);
 	}
 }
 
@@ -172,37 +556,65 @@ class Board {
 	// Updated each turn
 	final Team myTeam = new Team();
 	final Team opponentTeam = new Team();
-	private Cell[][] cells;
+
+	// Cells stored by index y * width + x and overwritten in place
+	private final int[] ore;
+	private final long[] known;
+	private final long[] hole;
+	// Cells whose ore, hole, radar or trap changed in the last update
+	private final int[] changed;
+	private int changedCount;
 	int myRadarCooldown;
 	int myTrapCooldown;
-	Map<Integer, Entity> entitiesById;
-	Collection<Coord> myRadarPos;
-	Collection<Coord> myTrapPos;
-
-	Board(Scanner in) {
+	// Entities by id, created the first time an id is seen and then reused
+	private Entity[] entities = new Entity[64];
+	final CellSet myRadarPos;
+	final CellSet myTrapPos;
+	private final CellSet previousRadarPos;
+	private final CellSet previousTrapPos;
+
+	Board(InputReader in) {
 		width = in.nextInt();
 		height = in.nextInt();
+		Coord.init(width, height);
+		ore = new int[width * height];
+		known = new long[(width * height + 63) >>> 6];
+		hole = new long[known.length];
+		changed = new int[3 * width * height];
+		myRadarPos = new CellSet(width, height);
+		myTrapPos = new CellSet(width, height);
+		previousRadarPos = new CellSet(width, height);
+		previousTrapPos = new CellSet(width, height);
 	}
 
-	void update(Scanner in) {
+	void update(InputReader in) {
 		// Read new data
 		myTeam.readScore(in);
 		opponentTeam.readScore(in);
-		cells = new Cell[height][width];
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				cells[y][x] = new Cell(in);
+		changedCount = 0;
+		for (int i = 0; i < ore.length; i++) {
+			int oreValue = in.nextOre();
+			boolean isKnown = (oreValue != InputReader.UNKNOWN);
+			boolean isHole = (in.nextInt() != 0);
+			if (!isKnown)
+				oreValue = 0;
+			if (ore[i] != oreValue || getFlag(known, i) != isKnown || getFlag(hole, i) != isHole) {
+				ore[i] = oreValue;
+				setFlag(known, i, isKnown);
+				setFlag(hole, i, isHole);
+				changed[changedCount++] = i;
 			}
 		}
 		int entityCount = in.nextInt();
 		myRadarCooldown = in.nextInt();
 		myTrapCooldown = in.nextInt();
-		entitiesById = new HashMap<>();
-		myRadarPos = new ArrayList<>();
-		myTrapPos = new ArrayList<>();
+		previousRadarPos.copyFrom(myRadarPos);
+		previousTrapPos.copyFrom(myTrapPos);
+		myRadarPos.clear();
+		myTrapPos.clear();
 		for (int i = 0; i < entityCount; i++) {
-			Entity entity = new Entity(in);
-			entitiesById.put(entity.id, entity);
+			Entity entity = pooled(in.nextInt());
+			entity.read(in);
 			if (entity.type == EntityType.ALLY_ROBOT) {
 				myTeam.robots.add(entity);
 			} else if (entity.type == EntityType.ENEMY_ROBOT) {
@@ -213,723 +625,938 @@ class Board {
 				myTrapPos.add(entity.pos);
 			}
 		}
+		markChanges(previousRadarPos, myRadarPos);
+		markChanges(previousTrapPos, myTrapPos);
 	}
 
-	boolean cellExist(Coord pos) {
-		return (pos.x >= 0) && (pos.y >= 0) && (pos.x < width) && (pos.y < height);
+	private Entity pooled(int id) {
+		if (id >= entities.length)
+			entities = Arrays.copyOf(entities, max(2 * entities.length, id + 1));
+		Entity entity = entities[id];
+		if (entity == null)
+			entity = entities[id] = new Entity(id);
+		return entity;
 	}
 
-	Cell getCell(Coord pos) {
-		return cells[pos.y][pos.x];
+	// Entity with the given id as of the last turn it was seen, null if never seen
+	Entity entity(int id) {
+		return id >= 0 && id < entities.length ? entities[id] : null;
 	}
 
-	Cell[][] getMatrixCell() {
-		return cells;
+	private void markChanges(CellSet before, CellSet after) {
+		for (int i = before.nextIndex(0); i >= 0; i = before.nextIndex(i + 1)) {
+			if (!after.contains(i))
+				changed[changedCount++] = i;
+		}
+		for (int i = after.nextIndex(0); i >= 0; i = after.nextIndex(i + 1)) {
+			if (!before.contains(i))
+				changed[changedCount++] = i;
+		}
 	}
-}
 
-class Player {
+	boolean cellExist(Coord pos) {
+		return cellExist(pos.x, pos.y);
+	}
 
-	public static void main(String args[]) {
-		new Player().run();
+	boolean cellExist(int x, int y) {
+		return (x >= 0) && (y >= 0) && (x < width) && (y < height);
 	}
 
-	final Scanner in = new Scanner(System.in);
+	int cellCount() {
+		return ore.length;
+	}
 
-	void run() {
-		// Parse initial conditions
-		int idRobotRadar = -1;
-		int idRobotTrap = -1;
-		Board board = new Board(in);
-		Support support = new Support(board);
-		Coord postrap = null;
-		int idReq = 0;
-		double oreCoverage = 0.0;
-		double totalCoverage = 0.0;
-		Coord wheretodig = support.thinkRadar2();
-		;
+	int changedCount() {
+		return changedCount;
+	}
 
-		while (true) {
-			// Parse current state of the game
-			board.update(in);
-			postrap = support.estimate();
-			Coord[] radars = board.myRadarPos.toArray(new Coord[0]);
-			support.constructRadarBoard();
-			for (int i = 0; i < radars.length; i++)
-				support.updateRadarBoard(radars[i]);
-
-			// Insert your strategy here
-			for (Entity robot : board.myTeam.robots) {
-
-				if (!robot.pos.equals(new Coord(-1, -1))) {// actions only for the non dead robots
-
-					if (board.myRadarPos.contains(wheretodig))
-						idReq = -1;
-
-					if (robot.item != EntityType.RADAR && robot.id == idRobotRadar && idReq == -1) {
-						System.err.print("updating" + "\n");
-						idRobotRadar = -1;
-						totalCoverage = 0.0;
-						for (int i = 0; i < board.height; i++)
-							for (int j = 0; j < board.width; j++)
-								if (support.coveredByRadar[i][j] && board.getCell(new Coord(j, i)).ore > 0
-										&& !board.myTrapPos.contains(new Coord(j, i))
-										&& !board.myRadarPos.contains(new Coord(j, i))
-										&& support.checkHole(new Coord(j, i)))
-									totalCoverage += board.getCell(new Coord(j, i)).ore;
+	// Index of the k-th cell changed by the last update
+	int changedCell(int k) {
+		return changed[k];
+	}
 
-					}
-					if (robot.item != EntityType.TRAP && robot.id == idRobotTrap)
-						idRobotTrap = -1;
-
-					if ((!board.myRadarPos.contains(wheretodig) && idReq == robot.id)
-							|| (board.myRadarCooldown == 0 && idRobotRadar == -1 && robot.id != idRobotTrap
-									&& (totalCoverage == 0 || oreCoverage / totalCoverage < 0.3))) {
-						System.err.print("entra" + "\n");
-						if (board.myRadarPos.contains(wheretodig)) {
-							wheretodig = support.thinkRadar2();
-						}
-						if (!wheretodig.equals(new Coord(-1, -1))) {
-							robot.action = Action.request(EntityType.RADAR);
-							idRobotRadar = robot.id;
-							idReq = robot.id;
-							System.err.print("entraaaaaa" + "\n");
-						}
+	int index(int x, int y) {
+		return y * width + x;
+	}
 
-					}
-					
-					  if (board.myTrapCooldown == 0 && idRobotTrap == -1 && robot.id !=
-					  idRobotRadar) { robot.action = Action.request(EntityType.TRAP); idRobotTrap =
-					  robot.id; postrap = support.placeTrap(); }
-					 
-
-					if (idRobotRadar != robot.id && idRobotTrap != robot.id) {
-
-						if (robot.item == EntityType.AMADEUSIUM) {
-							robot.action = Action.move(new Coord(0, robot.pos.y));
-							support.addHole(support.getRobotPos(robot));
-							support.alreadyVisited.add(support.getPosToDig(robot));
-						} else {
-
-							if (board.myRadarPos.size() > 0) {
-                            //Ho piazzato almeno un Radar 
-							boolean finded=false;
-							for (int j = 0; j < board.width; j++) {
-								for (int i = 0; i < board.height; i++) {
-										if (board.getCell(new Coord(j,i)).known && board.getCell(new Coord(j, i)).ore > 0
-												&& !support.isAlreadyVisited(new Coord(j, i))
-												&& !board.myTrapPos.contains(new Coord(j, i))
-												&& support.checkHole(new Coord(j, i))) {
-											support.addPosToDig(robot, new Coord(j, i));
-											support.addPos(robot, new Coord(j, i));
-											robot.action = Action.dig(new Coord(j, i));
-											finded=true;
-											break;
-										}
-									}
-								if(finded) break;
-								}
-							if(!finded) {
-								//Non ho trovato una posizione libera ( non scavata da noi ) e quindi devo ritornare su una posizione in cui ho gia scavato
-								for (int j = 0; j < board.width; j++) {
-									for (int i = 0; i < board.height; i++) {
-											if (board.getCell(new Coord(j,i)).known && board.getCell(new Coord(j, i)).ore > 0
-													&& !board.myTrapPos.contains(new Coord(j, i))
-													&& support.checkHole(new Coord(j, i))) {
-												support.addPosToDig(robot, new Coord(j, i));
-												support.addPos(robot, new Coord(j, i));
-												robot.action = Action.dig(new Coord(j, i));
-												finded=true;
-												break;
-											}
-										}
-									if(finded) break;
-									}
-							}
-							}
-							else {
-								//Non ho piazzato nessun radar mando i robot in una posizione stabilita tentando la fortuna
-								support.addPosToDig(robot, new Coord(5, 5+(robot.id%10)));
-								support.addPos(robot, new Coord(5, 5+(robot.id%10)));
-								robot.action = Action.dig(new Coord(5, 5+(robot.id%10)));
-							}
-						}
-					}
+	int ore(int x, int y) {
+		return ore[index(x, y)];
+	}
 
-					// closest = new Coord(j, i);
-
-					/*
-					 * if(!closest.equals(new Coord(100, 100))){ robot.action = Action.dig(closest);
-					 * support.addPos(robot, closest); }
-					 */
-					/*
-					 * else robot.action = Action.dig(new Coord(15, 7)); } else robot.action =
-					 * Action.move(new Coord(9, 4)); } }
-					 */
-					// if the robots with the radars/traps are dead
-					else if (robot.id == idRobotRadar && robot.item == EntityType.RADAR)
-						robot.action = Action.dig(wheretodig);
-					else if (robot.id == idRobotTrap && robot.item == EntityType.TRAP && postrap != null)
-						robot.action = Action.dig(postrap);
-
-					// robot.action = Action.none();
-					// robot.action.message = "Java Starter";
-				} // fine if
-				else if (robot.id == idRobotRadar)
-					idRobotRadar = -1;
-				else if (robot.id == idRobotTrap)
-					idRobotTrap = -1;
-
-			} // FINE FOR
-			oreCoverage = 0.0;
-			// controlliamo quanti ore sono rimasti
-			for (int i = 0; i < board.height; i++)
-				for (int j = 0; j < board.width; j++)
-					if (support.coveredByRadar[i][j] && board.getCell(new Coord(j, i)).ore > 0
-							&& !board.myTrapPos.contains(new Coord(j, i)) && !board.myRadarPos.contains(new Coord(j, i))
-							&& support.checkHole(new Coord(j, i)))
-						oreCoverage += board.getCell(new Coord(j, i)).ore;
-
-			System.err.print(oreCoverage / totalCoverage + "\n");
-			System.err.print(oreCoverage + "\n");
-			System.err.print(totalCoverage);
-			// Send your actions for this turn
-			for (Entity robot : board.myTeam.robots) {
-				if (robot.action != null)
-					System.out.println(robot.action);
-				else
-					System.out.println("WAIT");
-			}
-		}
+	int ore(Coord pos) {
+		return ore(pos.x, pos.y);
 	}
 
-	Coord findPos(Entity robot) {
-		return null;
+	boolean isKnown(int x, int y) {
+		return getFlag(known, index(x, y));
 	}
 
-}
+	boolean isKnown(Coord pos) {
+		return isKnown(pos.x, pos.y);
+	}
 
-class Support {
-	ArrayList<Coord> holes = new ArrayList<Coord>();
-	Board board;
-	boolean[][] coveredByRadar;
-	int[][] forecastMatrix;
-	Queue<Coord> radPos;
-	ArrayList<Coord> totRadPos;
-	LinkedList<Coord> myDig, enemyDig;
-	HashMap<Integer, Coord> storyRobotPos = new HashMap<Integer, Coord>();
-	HashMap<Integer, Coord> coveragePos = new HashMap<Integer, Coord>();
-	LinkedList<Coord> alreadyVisited = new LinkedList<Coord>();
-	private static final int RANGE = 4, UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+	boolean isHole(int x, int y) {
+		return getFlag(hole, index(x, y));
+	}
 
-	public Support(Board b) {
-		board = b;
-		myDig = new LinkedList<Coord>();
-		enemyDig = new LinkedList<Coord>();
-		coveredByRadar = new boolean[b.height][b.width];
-		forecastMatrix = new int[b.height][b.width];
-		radPos = new LinkedBlockingQueue<Coord>();
-		totRadPos = new ArrayList<Coord>();
+	boolean isHole(Coord pos) {
+		return isHole(pos.x, pos.y);
+	}
 
-		Coord x = new Coord(4, 7);
-		radPos.add(x);
-		totRadPos.add(x);
+	// Accessors by cell index, for full-board scans
+	int oreAt(int i) {
+		return ore[i];
+	}
 
-		x = new Coord(9, 4);
-		radPos.add(x);
-		totRadPos.add(x);
+	boolean isKnownAt(int i) {
+		return getFlag(known, i);
+	}
 
-		x = new Coord(9, 10);
-		radPos.add(x);
-		totRadPos.add(x);
+	boolean isHoleAt(int i) {
+		return getFlag(hole, i);
+	}
 
-		x = new Coord(17, 4);
-		radPos.add(x);
-		totRadPos.add(x);
+	private static boolean getFlag(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
 
-		x = new Coord(17, 10);
-		radPos.add(x);
-		totRadPos.add(x);
+	private static void setFlag(long[] bits, int i, boolean value) {
+		if (value)
+			bits[i >>> 6] |= 1L << i;
+		else
+			bits[i >>> 6] &= ~(1L << i);
+	}
+}
 
-		x = new Coord(25, 4);
-		radPos.add(x);
-		totRadPos.add(x);
+/**
+ * Time spent in the current turn. The clock starts when the first byte of the
+ * turn arrives; each planning phase then gets a budget, capped by the time
+ * left in the turn, and checks expired() to stop with its best answer so far.
+ * A clock that was never started, or that was disabled, never expires.
+ */
+class TurnClock {
+	// Our own limit, below the 50 ms allowed by the referee
+	static final long TURN_LIMIT = 40_000_000L;
+	static final long RADAR_BUDGET = 10_000_000L;
+	static final long TRAP_BUDGET = 10_000_000L;
+	static final long DIG_BUDGET = 5_000_000L;
+
+	private boolean running;
+	private boolean disabled;
+	private long turnStart;
+	private long phaseEnd;
+
+	// For offline games, whose outcome must not depend on the speed of the machine
+	void disable() {
+		disabled = true;
+	}
 
-		x = new Coord(25, 10);
-		radPos.add(x);
-		totRadPos.add(x);
+	void start() {
+		running = !disabled;
+		turnStart = System.nanoTime();
+		phaseEnd = turnStart + TURN_LIMIT;
+	}
 
+	void beginPhase(long budget) {
+		long now = System.nanoTime();
+		long turnEnd = turnStart + TURN_LIMIT;
+		phaseEnd = (turnEnd - (now + budget) < 0) ? turnEnd : now + budget;
 	}
 
-	public void constructRadarBoard() {
-		ArrayList<Coord> radarCoord = (ArrayList<Coord>) board.myRadarPos;
-		for (int i = 0; i < radarCoord.size(); i++) {
-			updateRadarBoard(radarCoord.get(i));
-		}
-	}
-
-	public void updateRadarBoard(Coord c) {
-		for (int i = 0; i < RANGE; i++) {
-			for (int j = 0; j <= RANGE - i; j++) {
-				if (board.cellExist(new Coord(c.x + j, c.y + i)))
-					coveredByRadar[c.y + i][c.x + j] = true;
-				if (board.cellExist(new Coord(c.x - j, c.y + i)))
-					coveredByRadar[c.y + i][c.x - j] = true;
-				if (board.cellExist(new Coord(c.x + j, c.y - i)))
-					coveredByRadar[c.y - i][c.x + j] = true;
-				if (board.cellExist(new Coord(c.x - j, c.y - i)))
-					coveredByRadar[c.y - i][c.x - j] = true;
-			}
-		}
+	boolean expired() {
+		return running && System.nanoTime() - phaseEnd >= 0;
 	}
 
-	public void findHoles() {
-		for (int i = 0; i < board.getMatrixCell().length; i++) {
-			for (int j = 0; j < (board.getMatrixCell())[i].length; j++) {
-				if (board.getMatrixCell()[i][j].hole && !holes.contains(new Coord(i, j)))
-					holes.add(new Coord(i, j));
-			}
-		}
+	// Nanoseconds since the start of the turn
+	long elapsed() {
+		return System.nanoTime() - turnStart;
 	}
+}
 
-	public Coord calculateBestHole(Coord c) {
-		if (holes.size() == 0)
-			return null;
-		Coord best = holes.get(0);
-		for (int i = 1; i < holes.size(); i++) {
-			int distance = c.distance(best);
-			if (distance - (c.distance(holes.get(i))) > 0)
-				distance = c.distance(holes.get(i));
-		}
-		return best;
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds, in the style of
+ * HdrHistogram: each power of two is split in SUB_BUCKETS buckets, so a
+ * recorded value is known within 1/16 of itself. Recording does not allocate.
+ */
+class LatencyHistogram {
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private final long[] counts = new long[(64 - SUB_BITS) * SUB_BUCKETS];
+	private long total;
+	private long max;
+
+	void record(long value) {
+		if (value < 0)
+			value = 0;
+		counts[bucket(value)]++;
+		total++;
+		if (value > max)
+			max = value;
 	}
 
-	public int[] countOre(Coord c) {
-		int[] ore = new int[RANGE];
-		for (int i = 0; i < RANGE; i++) {
-			for (int j = 0; j <= RANGE - i; j++) {
-				if (board.cellExist(new Coord(c.x + j, c.y - i)) && board.getCell(new Coord(c.x + j, c.y - i)).ore > 0)
-					ore[UP]++;
-				if (board.cellExist(new Coord(c.x - j, c.y - i)) && board.getCell(new Coord(c.x - j, c.y - i)).ore > 0)
-					ore[UP]++;
-				if (board.cellExist(new Coord(c.x + j, c.y + i)) && board.getCell(new Coord(c.x + j, c.y + i)).ore > 0)
-					ore[DOWN]++;
-				if (board.cellExist(new Coord(c.x - j, c.y + i)) && board.getCell(new Coord(c.x - j, c.y + i)).ore > 0)
-					ore[DOWN]++;
-			}
-		}
-		for (int i = 0; i < RANGE; i++) {
-			for (int j = 0; j <= RANGE - i; j++) {
-				if (board.cellExist(new Coord(c.x + i, c.y + j)) && board.getCell(new Coord(c.x + i, c.y + j)).ore > 0)
-					ore[RIGHT]++;
-				if (board.cellExist(new Coord(c.x + i, c.y - j)) && board.getCell(new Coord(c.x + i, c.y - j)).ore > 0)
-					ore[RIGHT]++;
-				if (board.cellExist(new Coord(c.x - i, c.y + j)) && board.getCell(new Coord(c.x - i, c.y + j)).ore > 0)
-					ore[LEFT]++;
-				if (board.cellExist(new Coord(c.x - i, c.y - j)) && board.getCell(new Coord(c.x - i, c.y - j)).ore > 0)
-					ore[LEFT]++;
-			}
-		}
-		return ore;
+	private static int bucket(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
 	}
 
-	public int calculateVisible(Coord c) {
-		int cont = 0;
-		for (int i = 0; i < RANGE; i++) {
-			for (int j = 0; j <= RANGE - i; j++) {
-				if (board.cellExist(new Coord(c.x + j, c.y + i)) && coveredByRadar[c.y + i][c.x + j])
-					cont++;
-				if (board.cellExist(new Coord(c.x - j, c.y + i)) && coveredByRadar[c.y + i][c.x - j])
-					cont++;
-				if (board.cellExist(new Coord(c.x + j, c.y - i)) && coveredByRadar[c.y - i][c.x + j])
-					cont++;
-				if (board.cellExist(new Coord(c.x - j, c.y - i)) && coveredByRadar[c.y - i][c.x - j])
-					cont++;
-			}
-		}
-		return cont;
+	// Highest value falling in the bucket
+	private static long highest(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
 	}
 
-	private Coord findPosRec(Coord c, ArrayList<Coord> visited, Object[] memory) {
-		visited.add(c);
-		boolean[] finded = new boolean[4];
-		ArrayList<Coord> tempRad = (ArrayList<Coord>) board.myRadarPos;
-		ArrayList<Coord> search = new ArrayList<Coord>();
-		Coord best = null;
-		int promise = 0;
-		int penalty = 0;
-		for (int i = 8; i > 4; i--) {
-			if (!finded[RIGHT] && board.cellExist(new Coord(c.x + i, c.y))) {
-				if (proximity(3, new Coord(c.x + i, c.y))) {
-					finded[RIGHT] = true;
-				} else {
-					Coord e = new Coord(c.x + i, c.y);
-					finded[RIGHT] = true;
-					if ((best == null && tempRad.contains(e)) || tempRad.contains(e)) {
-						if (!visited.contains(e)) {
-							search.add(e);
-						}
-					} else if (best == null) {
-						best = e;
-						promise = countOre(c)[RIGHT];
-						penalty = calculateVisible(e);
-					} else {
-						if ((promise * 3 - penalty) - (countOre(c)[RIGHT] * 3 - calculateVisible(e)) < 0) {
-							best = e;
-							promise = countOre(c)[RIGHT];
-							penalty = calculateVisible(e);
-						}
-					}
-					if (memory[0] == null) {
-						if (tempRad.contains(e)) {
-							memory[0] = e;
-							memory[1] = -1;
-						} else {
-							memory[0] = e;
-							memory[1] = countOre(c)[RIGHT] * 3 - calculateVisible(e);
-						}
-					} else {
-						if (!tempRad.contains(e)) {
-							if ((Integer) memory[1] - countOre(c)[RIGHT] * 3 - calculateVisible(e) < 0) {
-								memory[0] = e;
-								memory[1] = countOre(c)[RIGHT] * 3 - calculateVisible(e);
-							}
-						}
-						;
-					}
-				}
-			}
-			if (!finded[LEFT] && board.cellExist(new Coord(c.x - i, c.y)) && (c.x - i) != 0) {
-				if (proximity(3, new Coord(c.x - i, c.y))) {
-					finded[LEFT] = true;
-				} else {
-					Coord e = new Coord(c.x - i, c.y);
-					finded[LEFT] = true;
-					if ((best == null && tempRad.contains(e)) || tempRad.contains(e)) {
-						if (!visited.contains(e)) {
-							search.add(e);
-						}
-					} else if (best == null) {
-						best = e;
-						promise = countOre(c)[LEFT];
-						penalty = calculateVisible(e);
-					} else {
-						if ((promise * 3 - penalty) - (countOre(c)[LEFT] * 3 - calculateVisible(e)) < 0) {
-							best = e;
-							promise = countOre(c)[LEFT];
-							penalty = calculateVisible(e);
-						}
-					}
-					if (memory[0] == null) {
-						if (tempRad.contains(e)) {
-							memory[0] = e;
-							memory[1] = -1;
-						} else {
-							memory[0] = e;
-							memory[1] = countOre(c)[LEFT] * 3 - calculateVisible(e);
-						}
-					} else {
-						if (!tempRad.contains(e)) {
-							if ((Integer) memory[1] - countOre(c)[LEFT] * 3 - calculateVisible(e) < 0) {
-								memory[0] = e;
-								memory[1] = countOre(c)[LEFT] * 3 - calculateVisible(e);
-							}
-						}
-						;
-					}
-				}
-			}
-			if (!finded[UP] && board.cellExist(new Coord(c.x, c.y - i))) {
-				if (proximity(3, new Coord(c.x, c.y - i))) {
-					finded[UP] = true;
-				} else {
-					Coord e = new Coord(c.x, c.y - i);
-					finded[UP] = true;
-					if ((best == null && tempRad.contains(e)) || tempRad.contains(e)) {
-						if (!visited.contains(e)) {
-							search.add(e);
-						}
-					} else if (best == null) {
-						best = e;
-						promise = countOre(c)[UP];
-						penalty = calculateVisible(e);
-					} else {
-						if ((promise * 3 - penalty) - (countOre(c)[UP] * 3 - calculateVisible(e)) < 0) {
-							best = e;
-							promise = countOre(c)[UP];
-							penalty = calculateVisible(e);
-						}
-					}
-					if (memory[0] == null) {
-						if (tempRad.contains(e)) {
-							memory[0] = e;
-							memory[1] = -1;
-						} else {
-							memory[0] = e;
-							memory[1] = countOre(c)[UP] * 3 - calculateVisible(e);
-						}
-					} else {
-						if (!tempRad.contains(e)) {
-							if ((Integer) memory[1] - countOre(c)[UP] * 3 - calculateVisible(e) < 0) {
-								memory[0] = e;
-								memory[1] = countOre(c)[UP] * 3 - calculateVisible(e);
-							}
-						}
-						;
-					}
-				}
-			}
-			if (!finded[DOWN] && board.cellExist(new Coord(c.x, c.y + i))) {
-				if (proximity(3, new Coord(c.x, c.y + i))) {
-					finded[DOWN] = true;
-				} else {
-					Coord e = new Coord(c.x, c.y + i);
-					finded[DOWN] = true;
-					if ((best == null && tempRad.contains(e)) || tempRad.contains(e)) {
-						if (!visited.contains(e)) {
-							search.add(e);
-						}
-					} else if (best == null) {
-						best = e;
-						promise = countOre(c)[DOWN];
-						penalty = calculateVisible(e);
-					} else {
-						if ((promise * 3 - penalty) - (countOre(c)[DOWN] * 3 - calculateVisible(e)) < 0) {
-							best = e;
-							promise = countOre(c)[DOWN];
-							penalty = calculateVisible(e);
-						}
-					}
-					if (memory[0] == null) {
-						if (tempRad.contains(e)) {
-							memory[0] = e;
-							memory[1] = -1;
-						} else {
-							memory[0] = e;
-							memory[1] = countOre(c)[DOWN] * 3 - calculateVisible(e);
-						}
-					} else {
-						if (!tempRad.contains(e)) {
-							if ((Integer) memory[1] - countOre(c)[DOWN] * 3 - calculateVisible(e) < 0) {
-								memory[0] = e;
-								memory[1] = countOre(c)[DOWN] * 3 - calculateVisible(e);
-							}
-						}
-						;
-					}
-				}
-			}
-		}
-		while (search.size() > 0)
+	long count() {
+		return total;
+	}
+
+	long max() {
+		return max;
+	}
 
-		{
-			Coord s = search.remove(0);
-			findPosRec(s, visited, memory);
+	// Value below which the given fraction of the samples falls
+	long percentile(double fraction) {
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int b = 0; b < counts.length; b++) {
+			seen += counts[b];
+			if (seen >= rank)
+				return Math.min(highest(b), max);
 		}
-		if ((Integer) memory[1] != -1)
-			return (Coord) memory[0];
-		return null;
+		return max;
 	}
+}
 
-	public Coord findPos() {
-		Coord c = bestCoord((ArrayList<Coord>) board.myRadarPos);
-		Object[] memory = new Object[2];
-		return findPosRec(c, new ArrayList<Coord>(), memory);
+/**
+ * Latency of the phases of the turn, one histogram each. lap() closes the
+ * phase started by the previous lap (or by start) and opens the next one.
+ */
+class TurnMetrics {
+	static final int PARSE = 0, RADAR_BOARD = 1, ROLES = 2, ROBOT = 3, ASSIGN = 4, OUTPUT = 5, TURN = 6;
+	private static final String[] NAMES = { "parse", "radar board", "roles", "robot", "assign", "output",
+			"turn" };
+
+	private final LatencyHistogram[] phases = new LatencyHistogram[NAMES.length];
+	private long turnStart;
+	private long mark;
+
+	TurnMetrics() {
+		for (int p = 0; p < phases.length; p++)
+			phases[p] = new LatencyHistogram();
 	}
 
-	public Coord thinkRadar() {
-		ArrayList<Coord> radarCoord = (ArrayList<Coord>) board.myRadarPos;
-		if (radarCoord.size() == 0) {
-			// Il primo radar viene posizionato in una posizione centrale nella mappa
-			int height = board.height;
-			int width = board.width;
-			return new Coord(width / 2, height / 2);
-		} else {
-			// C' almeno un radar nella mappa che usiamo come punto di riferimento
-			return findPos();
-		}
+	void start() {
+		turnStart = System.nanoTime();
+		mark = turnStart;
+	}
 
+	void lap(int phase) {
+		long now = System.nanoTime();
+		phases[phase].record(now - mark);
+		mark = now;
 	}
 
-	public Coord estimate() {
-		for (int j = 1; j < board.width; j++) {
-			for (int i = 0; i < board.height; i++) {
-				if (board.getCell(new Coord(j, i)).ore > 1 && !board.myRadarPos.contains(new Coord(j, i))
-						&& this.checkHole(new Coord(j, i)) && !board.myTrapPos.contains(new Coord(j, i)))
-					return new Coord(j, i);
-			}
-		}
-		return null;
-	}
-
-	public Coord estimate(ArrayList<Entity> enemy) {
-		for (int i = 0; i < enemy.size(); i++) {
-			Coord c = enemy.get(i).pos;
-			if (enemy.get(i).isAlive()) {
-				forecastMatrix[c.y][c.x] = forecastMatrix[c.y][c.x] + 3;
-				if (board.cellExist(new Coord(c.x + 1, c.y)))
-					forecastMatrix[c.y][c.x + 1]++;
-				if (board.cellExist(new Coord(c.x - 1, c.y)))
-					forecastMatrix[c.y][c.x - 1]++;
-				if (board.cellExist(new Coord(c.x, c.y + 1)))
-					forecastMatrix[c.y + 1][c.x]++;
-				if (board.cellExist(new Coord(c.x, c.y - 1)))
-					forecastMatrix[c.y - 1][c.x]++;
-				if (board.cellExist(new Coord(c.x - 1, c.y - 1)))
-					forecastMatrix[c.y - 1][c.x - 1]++;
-				if (board.cellExist(new Coord(c.x + 1, c.y - 1)))
-					forecastMatrix[c.y - 1][c.x + 1]++;
-				if (board.cellExist(new Coord(c.x + 1, c.y + 1)))
-					forecastMatrix[c.y + 1][c.x + 1]++;
-				if (board.cellExist(new Coord(c.x - 1, c.y + 1)))
-					forecastMatrix[c.y + 1][c.x - 1]++;
-			}
-		}
-		Coord best = null;
-		int numVisit = 0;
-		for (int i = 0; i < forecastMatrix.length; i++) {
-			for (int j = 1; j < forecastMatrix[i].length; j++) {
-				if (numVisit < forecastMatrix[i][j]) {
-					numVisit = forecastMatrix[i][j];
-					forecastMatrix[i][j] = 0;
-					best = new Coord(j, i);
-				}
-			}
-		}
-		return best;
+	void endTurn() {
+		lap(OUTPUT);
+		phases[TURN].record(mark - turnStart);
 	}
 
-	private boolean proximity(int range, Coord c) {
-		ArrayList<Coord> ap = (ArrayList<Coord>) board.myRadarPos;
-		for (int i = 1; i < range; i++) {
-			if (ap.contains(new Coord(c.x + 1, c.y)) || ap.contains(new Coord(c.x - i, c.y))
-					|| ap.contains(new Coord(c.x, c.y - i)) || ap.contains(new Coord(c.x, c.y + i))
-					|| ap.contains(new Coord(c.x - i, c.y - i)) || ap.contains(new Coord(c.x - i, c.y + i))
-					|| ap.contains(new Coord(c.x + i, c.y + i)) || ap.contains(new Coord(c.x + i, c.y - i))) {
-				return true;
-			}
+	// p50, p99 and max of every phase, in microseconds
+	void report(PrintStream err) {
+		for (int p = 0; p < phases.length; p++) {
+			LatencyHistogram h = phases[p];
+			err.printf("%-12s n %4d  p50 %8.1f  p99 %8.1f  max %8.1f us%n", NAMES[p], h.count(),
+					h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.max() / 1e3);
 		}
-		return false;
 	}
+}
 
-	private Coord bestCoord(ArrayList<Coord> ps) {
+/**
+ * Tunable constants of the strategy. DEFAULT holds the values played in the
+ * arena; other instances are built by the local tournament to tune them.
+ */
+class Params {
+	static final int[][] DEFAULT_RADAR_LAYOUT = { { 4, 7 }, { 9, 4 }, { 9, 10 }, { 17, 4 }, { 17, 10 }, { 25, 4 },
+			{ 25, 10 } };
+	static final Params DEFAULT = new Params(0.3, 3, 5, DEFAULT_RADAR_LAYOUT, 0, 16);
+
+	// A new radar is requested when the ore left under radar falls below this ratio
+	final double coverageRatio;
+	// Weight of the ore promise against the overlap when placing a radar
+	final int promiseWeight;
+	// Columns before this one are never dug blindly
+	final int blindDigColumn;
+	// Fixed radar positions, as {x, y}, in placement order
+	final int[][] radarLayout;
+	// Turns searched by the dig planner, 0 to assign the digs one turn at a time
+	final int planHorizon;
+	// Plans kept at every turn of the search
+	final int beamWidth;
+
+	Params(double coverageRatio, int promiseWeight, int blindDigColumn, int[][] radarLayout, int planHorizon,
+			int beamWidth) {
+		this.coverageRatio = coverageRatio;
+		this.promiseWeight = promiseWeight;
+		this.blindDigColumn = blindDigColumn;
+		this.radarLayout = radarLayout;
+		this.planHorizon = planHorizon;
+		this.beamWidth = beamWidth;
+	}
+
+	public String toString() {
+		return "ratio " + coverageRatio + ", promise " + promiseWeight + ", blind from column " + blindDigColumn
+				+ ", layout " + Arrays.deepToString(radarLayout) + ", horizon " + planHorizon + ", beam " + beamWidth;
+	}
+}
+
+/**
+ * Roles of our robots, kept across turns in dense arrays by robot index, the
+ * place of the robot in the input. A carrier fetches its item at the HQ, then
+ * plants it on its target cell; the other robots dig, or bring their ore back.
+ * Dead robots are IDLE. The radar targets are also kept in a shared CellSet,
+ * so the radar planner can leave them to their carriers.
+ */
+class RobotRoles {
+	static final int IDLE = 0, FETCH_RADAR = 1, PLANT_RADAR = 2, FETCH_TRAP = 3, PLANT_TRAP = 4, DIG = 5, RETURN = 6;
+
+	private final int[] role;
+	// Cell where a carrier plants its item, -1 when not chosen yet
+	private final int[] target;
+	private final CellSet radarTargets;
+
+	RobotRoles(int robots, CellSet radarTargets) {
+		role = new int[robots];
+		target = new int[robots];
+		Arrays.fill(target, -1);
+		this.radarTargets = radarTargets;
+	}
+
+	int role(int robot) {
+		return role[robot];
+	}
+
+	// Changes the role of a robot, its target is dropped with the item it was for
+	void set(int robot, int newRole) {
+		if (itemOf(newRole) != itemOf(role[robot]))
+			setTarget(robot, -1);
+		role[robot] = newRole;
+	}
+
+	int target(int robot) {
+		return target[robot];
+	}
+
+	void setTarget(int robot, int cell) {
+		if (itemOf(role[robot]) == EntityType.RADAR) {
+			if (target[robot] >= 0)
+				radarTargets.remove(target[robot]);
+			if (cell >= 0)
+				radarTargets.add(cell);
+		}
+		target[robot] = cell;
+	}
+
+	// Robots fetching or carrying the item
+	int carriers(EntityType item) {
+		int count = 0;
+		for (int r = 0; r < role.length; r++) {
+			if (itemOf(role[r]) == item)
+				count++;
+		}
+		return count;
+	}
+
+	static EntityType itemOf(int role) {
+		switch (role) {
+		case FETCH_RADAR:
+		case PLANT_RADAR:
+			return EntityType.RADAR;
+		case FETCH_TRAP:
+		case PLANT_TRAP:
+			return EntityType.TRAP;
+		default:
+			return EntityType.NOTHING;
+		}
+	}
+}
+
+class Player {
+
+	public static void main(String args[]) {
+		new Player(System.in, System.out, System.err).run();
+	}
+
+	final InputReader in;
+	final PrintStream out;
+	final PrintStream err;
+	final Params params;
+	// Robots waiting for a dig target in the current turn
+	final List<Entity> diggers = new ArrayList<>();
+	final TurnClock clock = new TurnClock();
+	final TurnMetrics metrics = new TurnMetrics();
+	final CommandWriter commands = new CommandWriter();
+	// The game ends after this turn at the latest: the metrics are reported then
+	static final int LAST_TURN = 200;
+	int turns;
+	private boolean reported;
+
+	Board board;
+	Support support;
+	RobotRoles roles;
+	double oreCoverage = 0.0;
+	double totalCoverage = 0.0;
+
+	Player(InputStream in, PrintStream out, PrintStream err) {
+		this(in, out, err, Params.DEFAULT);
+	}
+
+	Player(InputStream in, PrintStream out, PrintStream err, Params params) {
+		this.in = new InputReader(in);
+		this.out = out;
+		this.err = err;
+		this.params = params;
+	}
+
+	void run() {
+		init();
+		try {
+			while (true)
+				turn();
+		} catch (NoSuchElementException e) {
+			// Fine dell'input: la partita e finita prima dell'ultimo turno
+			endGame();
+		}
+	}
+
+	// Reports the metrics, once, when the game is over
+	void endGame() {
+		if (!reported)
+			metrics.report(err);
+		reported = true;
+	}
+
+	// Parse initial conditions
+	void init() {
+		board = new Board(in);
+		support = new Support(board, params);
+		roles = new RobotRoles(GameState.ROBOTS, support.radarTargets);
+	}
+
+	void turn() {
+		// Parse current state of the game
+		in.awaitInput();
+		clock.start();
+		metrics.start();
+		board.update(in);
+		metrics.lap(TurnMetrics.PARSE);
+		support.update();
+		metrics.lap(TurnMetrics.RADAR_BOARD);
+
+		// Insert your strategy here
+		updateRoles();
+		if (totalCoverage == 0 || oreCoverage / totalCoverage < params.coverageRatio)
+			fetch(RobotRoles.FETCH_RADAR, board.myRadarCooldown);
+		fetch(RobotRoles.FETCH_TRAP, board.myTrapCooldown);
+		// Include la pianificazione del radar per il robot che va a prenderlo
+		metrics.lap(TurnMetrics.ROLES);
+		int index = 0;
+		for (Entity robot : board.myTeam.robots) {
+			if (robot.isAlive()) {// actions only for the non dead robots
+				act(index, robot);
+				metrics.lap(TurnMetrics.ROBOT);
+			}
+			index++;
+		}
+		support.assignDigs(diggers, clock);
+		diggers.clear();
+		support.recordCommands(board.myTeam.robots);
+		// controlliamo quanti ore sono rimasti
+		oreCoverage = support.coverage.coveredOre();
+		metrics.lap(TurnMetrics.ASSIGN);
+
+		// Send your actions for this turn
+		for (Entity robot : board.myTeam.robots)
+			commands.write(robot.action);
+		commands.flushTo(out);
+		metrics.endTurn();
+		if (++turns == LAST_TURN)
+			endGame();
+	}
+
+	// Gives every robot the role its item calls for
+	private void updateRoles() {
+		int index = 0;
+		for (Entity robot : board.myTeam.robots) {
+			int role = roles.role(index);
+			int next;
+			if (!robot.isAlive())
+				next = RobotRoles.IDLE;
+			else if (robot.item == EntityType.RADAR)
+				next = RobotRoles.PLANT_RADAR;
+			else if (robot.item == EntityType.TRAP)
+				next = RobotRoles.PLANT_TRAP;
+			else if (role == RobotRoles.FETCH_RADAR || role == RobotRoles.FETCH_TRAP)
+				next = role;
+			else
+				next = robot.item == EntityType.AMADEUSIUM ? RobotRoles.RETURN : RobotRoles.DIG;
+			if (role == RobotRoles.PLANT_RADAR && next != RobotRoles.PLANT_RADAR)
+				// Radar piazzato: la copertura si misura da qui
+				totalCoverage = support.coverage.coveredOre();
+			roles.set(index++, next);
+		}
+	}
+
+	/**
+	 * Sends a robot to fetch an item, if none is carrying one already. Only a
+	 * robot on its way to the HQ, or standing on it, is picked: it requests the
+	 * item once its ore is delivered, and the cooldown runs out while it walks.
+	 * The closest one that finds the item ready is sent.
+	 */
+	private void fetch(int fetchRole, int cooldown) {
+		if (roles.carriers(RobotRoles.itemOf(fetchRole)) > 0)
+			return;
+		int best = -1;
+		int bestHome = 0;
+		int index = 0;
+		for (Entity robot : board.myTeam.robots) {
+			int role = roles.role(index);
+			if (role == RobotRoles.RETURN || role == RobotRoles.DIG && robot.pos.x == 0) {
+				int home = support.travel.home(board.index(robot.pos.x, robot.pos.y));
+				if (best < 0 || home < bestHome) {
+					best = index;
+					bestHome = home;
+				}
+			}
+			index++;
+		}
+		if (best < 0 || cooldown > bestHome)
+			return;
+		if (fetchRole == RobotRoles.FETCH_RADAR) {
+			int target = plantTarget(EntityType.RADAR);
+			if (target < 0)
+				return;
+			roles.set(best, fetchRole);
+			roles.setTarget(best, target);
+		} else
+			roles.set(best, fetchRole);
+	}
+
+	private void act(int index, Entity robot) {
+		if (robot.item == EntityType.AMADEUSIUM) {
+			support.addHole(support.getRobotPos(robot));
+			support.markVisited(support.getPosToDig(robot));
+			support.recordDig(support.getPosToDig(robot), true);
+		}
+		switch (roles.role(index)) {
+		case RobotRoles.FETCH_RADAR:
+			robot.action.request(EntityType.RADAR);
+			break;
+		case RobotRoles.FETCH_TRAP:
+			robot.action.request(EntityType.TRAP);
+			break;
+		case RobotRoles.PLANT_RADAR:
+		case RobotRoles.PLANT_TRAP:
+			plant(index, robot);
+			break;
+		case RobotRoles.RETURN:
+			robot.action.move(Coord.of(0, robot.pos.y));
+			break;
+		default:
+			// Ha scavato nel turno precedente ed e senza ore: la cella era vuota
+			Coord dug = support.getDugPos(robot);
+			if (dug != null)
+				support.recordDig(dug, false);
+			if (board.myRadarPos.size() > 0) {
+				// Ho piazzato almeno un Radar: il bersaglio viene scelto insieme
+				// a quello degli altri robot alla fine del turno
+				diggers.add(robot);
+			} else {
+				//Non ho piazzato nessun radar: il robot tenta la fortuna dove il modello si aspetta piu ore
+				support.digBlind(robot);
+			}
+		}
+	}
+
+	/**
+	 * Digs the item of a carrier into its target. A radar keeps its target
+	 * unless it was taken meanwhile, a trap goes wherever the ore is best this
+	 * turn.
+	 */
+	private void plant(int index, Entity robot) {
+		int target = roles.target(index);
+		if (target < 0 || robot.item == EntityType.TRAP || board.myRadarPos.contains(target)
+				|| board.myTrapPos.contains(target) || support.suspicion.suspected.contains(target)) {
+			roles.setTarget(index, -1);
+			target = plantTarget(robot.item);
+			roles.setTarget(index, target);
+		}
+		if (target >= 0)
+			robot.action.dig(Coord.of(target % board.width, target / board.width));
+	}
+
+	// Best cell for a new radar or trap, or -1
+	private int plantTarget(EntityType item) {
+		Coord c = item == EntityType.RADAR ? support.planRadar(clock) : support.estimate();
+		return c == null || !board.cellExist(c) ? -1 : board.index(c.x, c.y);
+	}
+
+}
+
+class Support {
+	CellSet holes;
+	Board board;
+	final Neighborhood radarArea;
+	final TravelTimes travel;
+	final RadarCoverage coverage;
+	final DigCandidates digCandidates;
+	final RadarPlanner radarPlanner;
+	final TrapPlanner trapPlanner;
+	final TrapSuspicion suspicion;
+	// Radar cells promised to the robots fetching or carrying a radar
+	final CellSet radarTargets;
+	final OreModel oreModel;
+	// Cells dug blindly this turn, one robot each
+	private final CellSet blindClaims;
+	private final int blindDigColumn;
+	// Null when the digs are assigned one turn at a time
+	final BeamPlanner digPlanner;
+	private final GameState root;
+	private final int[] rootCommands = new int[GameState.ROBOTS];
+	private final boolean[] planned = new boolean[GameState.ROBOTS];
+	private final int[] plannedTargets = new int[GameState.ROBOTS];
+	private final int[] previousTargets = new int[GameState.ROBOTS];
+	private final int[] plannedRadars = new int[1];
+	final EnemyHeatmap heatmap;
+	Coord enemyHotspot;
+	Queue<Coord> radPos;
+	ArrayList<Coord> totRadPos;
+	CellSet myDig, enemyDig;
+	HashMap<Integer, Coord> storyRobotPos = new HashMap<Integer, Coord>();
+	HashMap<Integer, Coord> coveragePos = new HashMap<Integer, Coord>();
+	// Cells dug by our empty-handed robots with the commands of the last turn
+	HashMap<Integer, Coord> dugPos = new HashMap<Integer, Coord>();
+	CellSet alreadyVisited;
+	// Ore units offered to the robots looking for a dig target
+	private static final int DIG_CANDIDATES = 24, MAX_ROBOTS = 10, NO_TARGET_COST = 1000;
+	private final TargetAssignment assignment = new TargetAssignment(MAX_ROBOTS, DIG_CANDIDATES + MAX_ROBOTS);
+	private final int[] candidates = new int[DIG_CANDIDATES];
+	private static final int RANGE = 4;
+
+	public Support(Board b, Params params) {
+		board = b;
+		holes = new CellSet(b.width, b.height);
+		myDig = new CellSet(b.width, b.height);
+		enemyDig = new CellSet(b.width, b.height);
+		alreadyVisited = new CellSet(b.width, b.height);
+		radarArea = new Neighborhood(b.width, b.height, RANGE);
+		travel = new TravelTimes(b.width, b.height);
+		suspicion = new TrapSuspicion(b);
+		radarTargets = new CellSet(b.width, b.height);
+		coverage = new RadarCoverage(b, radarArea, myDig);
+		digCandidates = new DigCandidates(b, travel, myDig, alreadyVisited, suspicion.suspected);
+		trapPlanner = new TrapPlanner(b, myDig, enemyDig, suspicion.suspected);
+		oreModel = new OreModel(b, travel);
+		blindClaims = new CellSet(b.width, b.height);
+		blindDigColumn = params.blindDigColumn;
+		radarPlanner = new RadarPlanner(b, radarArea, coverage, oreModel, suspicion.suspected,
+				radarTargets, params.promiseWeight);
+		digPlanner = params.planHorizon > 0 ? new BeamPlanner(b, radarArea, travel, params.planHorizon,
+				params.beamWidth)
+				: null;
+		root = new GameState(b.width, b.height, radarArea);
+		heatmap = new EnemyHeatmap(b.width, b.height);
+		radPos = new LinkedBlockingQueue<Coord>();
+		totRadPos = new ArrayList<Coord>();
+		for (int[] position : params.radarLayout) {
+			Coord x = Coord.of(position[0], position[1]);
+			radPos.add(x);
+			totRadPos.add(x);
+		}
+	}
+
+	// Brings every structure up to date with the last Board.update
+	public void update() {
+		int suspects = suspicion.observe(board.opponentTeam.robots);
+		constructRadarBoard();
+		digCandidates.sync();
+		for (int k = 0; k < suspects; k++)
+			digCandidates.refresh(suspicion.flagged(k));
+		oreModel.sync();
+		blindClaims.clear();
+		enemyHotspot = estimate(board.opponentTeam.robots);
+	}
+
+	public void constructRadarBoard() {
+		coverage.sync();
+	}
+
+	public void findHoles() {
+		for (int i = 0; i < board.height; i++) {
+			for (int j = 0; j < board.width; j++) {
+				if (board.isHole(j, i))
+					holes.add(board.index(j, i));
+			}
+		}
+	}
+
+	public Coord calculateBestHole(Coord c) {
+		if (holes.size() == 0)
+			return null;
+		Coord best = holes.coord(holes.nextIndex(0));
+		for (Coord hole : holes) {
+			int distance = c.distance(best);
+			if (distance - (c.distance(hole)) > 0)
+				distance = c.distance(hole);
+		}
+		return best;
+	}
+
+	public int[] countOre(Coord c) {
+		int[] ore = new int[4];
+		if (!board.cellExist(c))
+			return ore;
+		int index = board.index(c.x, c.y);
+		for (int direction = 0; direction < 4; direction++) {
+			int[] area = radarArea.quadrant(index, direction);
+			int count = 0;
+			for (int i = 0; i < area.length; i++) {
+				if (board.oreAt(area[i]) > 0)
+					count++;
+			}
+			ore[direction] = count;
+		}
+		return ore;
+	}
+
+	public int calculateVisible(Coord c) {
+		if (!board.cellExist(c))
+			return 0;
+		int[] area = radarArea.diamond(board.index(c.x, c.y));
+		int cont = 0;
+		for (int i = 0; i < area.length; i++) {
+			if (coverage.isCovered(area[i]))
+				cont++;
+		}
+		return cont;
+	}
+
+	public Coord findPos(TurnClock clock) {
+		if (radarPlanner.plan(1, plannedRadars, clock) == 0)
+			return null;
+		return Coord.of(plannedRadars[0] % board.width, plannedRadars[0] / board.width);
+	}
+
+	public Coord thinkRadar() {
+		if (board.myRadarPos.isEmpty()) {
+			// Il primo radar viene posizionato in una posizione centrale nella mappa
+			int height = board.height;
+			int width = board.width;
+			return Coord.of(width / 2, height / 2);
+		} else {
+			// C' almeno un radar nella mappa che usiamo come punto di riferimento
+			return findPos(new TurnClock());
+		}
+
+	}
+
+	// Trap cell: the untouched cell with more than one ore where the enemy robots have been the most
+	public Coord estimate() {
 		Coord best = null;
-		for (int i = 0; i < ps.size(); i++) {
-			if (best == null)
-				best = ps.get(i);
-			else if ((countOre(best)[UP] + countOre(best)[DOWN] + countOre(best)[RIGHT] + countOre(best)[LEFT])
-					- (countOre(ps.get(i))[UP] + countOre(ps.get(i))[DOWN] + countOre(ps.get(i))[RIGHT]
-							+ countOre(ps.get(i))[LEFT]) < 0) {
-				best = ps.get(i);
+		float bestHeat = -1;
+		for (int j = 1; j < board.width; j++) {
+			for (int i = 0; i < board.height; i++) {
+				if (board.ore(j, i) > 1 && !board.myRadarPos.contains(j, i)
+						&& this.checkHole(Coord.of(j, i)) && !board.myTrapPos.contains(j, i)
+						&& !suspicion.suspected.contains(j, i)) {
+					float heat = heatmap.heat(board.index(j, i));
+					if (heat > bestHeat) {
+						best = Coord.of(j, i);
+						bestHeat = heat;
+					}
+				}
 			}
 		}
 		return best;
 	}
 
+	// Records where the enemy robots are this turn, returns the hottest cell of the heatmap
+	public Coord estimate(Collection<Entity> enemy) {
+		heatmap.observe(enemy);
+		int best = heatmap.hottest();
+		return best < 0 ? null : Coord.of(best % board.width, best / board.width);
+	}
+
+	// Next radar position within the radar budget, the fixed layout when it runs out
+	public Coord planRadar(TurnClock clock) {
+		clock.beginPhase(TurnClock.RADAR_BUDGET);
+		Coord best = null;
+		if (!board.myRadarPos.isEmpty())
+			best = findPos(clock);
+		if (best == null || board.myRadarPos.contains(best))
+			best = thinkRadar2();
+		return best;
+	}
+
 	public Coord thinkRadar2() {
-		ArrayList<Coord> updatedRadarPos = (ArrayList<Coord>) board.myRadarPos;
+		CellSet updatedRadarPos = board.myRadarPos;
 		if (radPos.isEmpty()) {
 			for (int i = 0; i < totRadPos.size(); i++) {
-				if (!updatedRadarPos.contains(totRadPos.get(i))) {
+				if (!updatedRadarPos.contains(totRadPos.get(i)) && !radarTargets.contains(totRadPos.get(i))) {
 					radPos.add(totRadPos.get(i));
 					break;
 				}
 			}
 		}
 		if (radPos.isEmpty())
-			return new Coord(-1, -1);
+			return Coord.NONE;
 		else
 
 			return radPos.remove();
 	}
 
 	public boolean checkHole(Coord c) {
-		if (myDig.contains(c) || !board.getCell(c).hole)
+		if (myDig.contains(c) || !board.isHole(c))
 			return true;
 		return false;
 	}
 
-	public Coord placeTrap() {
-		if (enemyDig.size() == 0) {
-			for (int j = 1; j < board.width; j++) {
-				for (int i = 0; i < board.height; i++) {
-					if (board.getCell(new Coord(j, i)).hole && !myDig.contains(new Coord(j, i))
-							&& !board.myRadarPos.contains(new Coord(j, i))
-							&& !board.myTrapPos.contains(new Coord(j, i))) {
-						enemyDig.add(new Coord(j, i));
-					}
-				}
-			}
-			Coord best = null;
-			int distance = 0;
-			for (int i = 0; i < enemyDig.size(); i++) {
-				if (best == null) {
-					best = enemyDig.get(i);
-					for (int j = 0; j < enemyDig.size(); j++) {
-						if (i != j) {
-							distance = distance + enemyDig.get(j).distance(best);
-						}
-					}
-				} else {
-					Coord tempBest = enemyDig.get(i);
-					int tempDistance = 0;
-					for (int j = 0; j < enemyDig.size(); j++) {
-						if (i != j) {
-							tempDistance = tempDistance + enemyDig.get(j).distance(tempBest);
-						}
-					}
-					if (distance > tempDistance) {
-						distance = tempDistance;
-						best = tempBest;
-					}
-				}
-			}
-			return best;
-		} else {
-			LinkedList<Coord> tempEnemyDig = new LinkedList<Coord>();
-			for (int j = 1; j < board.width; j++) {
-				for (int i = 0; i < board.height; i++) {
-					if (board.getCell(new Coord(j, i)).hole && !myDig.contains(new Coord(j, i))
-							&& !board.myRadarPos.contains(new Coord(j, i)) && !board.myTrapPos.contains(new Coord(j, i))
-							&& !enemyDig.contains(new Coord(j, i))) {
-						tempEnemyDig.add(new Coord(j, i));
-					}
-				}
-			}
-			Coord best = null;
-			int distance = 0;
-			for (int i = 0; i < tempEnemyDig.size(); i++) {
-				if (best == null) {
-					best = tempEnemyDig.get(i);
-					for (int j = 0; j < tempEnemyDig.size(); j++) {
-						if (i != j) {
-							distance = distance + tempEnemyDig.get(j).distance(best);
-						}
-					}
-				} else {
-					Coord tempBest = tempEnemyDig.get(i);
-					int tempDistance = 0;
-					for (int j = 0; j < tempEnemyDig.size(); j++) {
-						if (i != j) {
-							tempDistance = tempDistance + tempEnemyDig.get(j).distance(tempBest);
-						}
-					}
-					if (distance > tempDistance) {
-						distance = tempDistance;
-						best = tempBest;
-					}
-				}
+	/**
+	 * Trap on the most central new enemy hole. Only the benchmarks use it, and
+	 * they call trapPlanner.sync() after every Board.update: in local games
+	 * traps in enemy holes did worse than those at estimate().
+	 */
+	public Coord placeTrap(TurnClock clock) {
+		clock.beginPhase(TurnClock.TRAP_BUDGET);
+		int best = clock.expired() ? -1 : trapPlanner.best();
+		if (best >= 0)
+			return Coord.of(best % board.width, best / board.width);
+		// Nessuna nuova buca nemica: la zona piu frequentata dai nemici
+		if (enemyHotspot != null && !board.myRadarPos.contains(enemyHotspot)
+				&& !board.myTrapPos.contains(enemyHotspot) && !suspicion.suspected.contains(enemyHotspot))
+			return enemyHotspot;
+		return estimate();
+	}
+
+	// Sends the robots to the best known ore cells, those left without ore dig blindly
+	public void assignDigs(List<Entity> robots, TurnClock clock) {
+		assignOre(robots, clock);
+		for (Entity robot : robots) {
+			if (robot.action.command == Action.WAIT)
+				digBlind(robot);
+		}
+	}
+
+	// Unknown cell with the most expected ore per turn for the robot
+	public void digBlind(Entity robot) {
+		int index = oreModel.bestBlind(board.index(robot.pos.x, robot.pos.y), blindDigColumn, blindClaims);
+		if (index >= 0) {
+			blindClaims.add(index);
+			setDigTarget(robot, blindClaims.coord(index));
+		}
+	}
+
+	// Remembers the cells our robots dig with the commands of this turn
+	public void recordCommands(Collection<Entity> robots) {
+		dugPos.clear();
+		for (Entity robot : robots) {
+			Action action = robot.action;
+			if (robot.isAlive() && robot.item == EntityType.NOTHING && action.command == Action.DIG
+					&& robot.pos.distance(action.pos) <= 1)
+				dugPos.put(robot.id, action.pos);
+		}
+	}
+
+	public Coord getDugPos(Entity e) {
+		return dugPos.get(e.id);
+	}
+
+	// What one of our digs found in a cell
+	public void recordDig(Coord c, boolean found) {
+		if (c != null && board.cellExist(c))
+			oreModel.observeDig(board.index(c.x, c.y), found);
+	}
+
+	// Known ore cells for the robots, minimizing the total round trip
+	private void assignOre(List<Entity> robots, TurnClock clock) {
+		int rows = min(robots.size(), MAX_ROBOTS);
+		if (rows == 0)
+			return;
+		clock.beginPhase(TurnClock.DIG_BUDGET);
+		if (clock.expired()) {
+			// Non c'e piu tempo: ogni robot prende il miglior bersaglio rimasto
+			for (int r = 0; r < robots.size(); r++) {
+				int index = digCandidates.reserveBest();
+				if (index >= 0)
+					setDigTarget(robots.get(r), Coord.of(index % board.width, index / board.width));
 			}
-			for (int j = 0; j < tempEnemyDig.size(); j++) {
-				enemyDig.add(tempEnemyDig.get(j));
+			return;
+		}
+		int cols = 0;
+		while (cols < DIG_CANDIDATES && (candidates[cols] = digCandidates.reserveBest()) >= 0)
+			cols++;
+		if (digPlanner != null && planDigs(robots, cols, clock))
+			return;
+		assignment.reset(rows, cols + rows);
+		for (int r = 0; r < rows; r++) {
+			Coord pos = robots.get(r).pos;
+			int from = board.index(pos.x, pos.y);
+			for (int c = 0; c < cols; c++)
+				assignment.setCost(r, c, travel.roundTrip(from, candidates[c]));
+			// Robots left without ore
+			for (int c = cols; c < cols + rows; c++)
+				assignment.setCost(r, c, NO_TARGET_COST);
+		}
+		assignment.solve();
+		for (int c = 0; c < cols; c++) {
+			if (assignment.rowOf(c) < 0)
+				digCandidates.release(candidates[c]);
+		}
+		for (int r = 0; r < rows; r++) {
+			int c = assignment.colOf(r);
+			if (c >= 0 && c < cols)
+				setDigTarget(robots.get(r), Coord.of(candidates[c] % board.width, candidates[c] / board.width));
+		}
+	}
+
+	// Targets from the beam search over the next turns, false when it ran out of time
+	private boolean planDigs(List<Entity> robots, int cols, TurnClock clock) {
+		root.load(board, coverage);
+		for (int r = 0; r < root.robots; r++) {
+			Entity robot = board.entity(root.robotId[r]);
+			rootCommands[r] = GameState.commandOf(robot.action, board.width);
+			planned[r] = robots.contains(robot);
+			Coord previous = getPosToDig(robot);
+			previousTargets[r] = previous != null && board.cellExist(previous) ? board.index(previous.x, previous.y) : -1;
+		}
+		if (!digPlanner.plan(root, rootCommands, planned, previousTargets, candidates, cols, plannedTargets, clock))
+			return false;
+		for (int c = 0; c < cols; c++)
+			digCandidates.release(candidates[c]);
+		for (int r = 0; r < root.robots; r++) {
+			int target = plannedTargets[r];
+			if (planned[r] && target >= 0) {
+				digCandidates.reserve(target);
+				setDigTarget(board.entity(root.robotId[r]),
+						Coord.of(target % board.width, target / board.width));
 			}
-			return best;
 		}
+		return true;
+	}
+
+	private void setDigTarget(Entity robot, Coord target) {
+		addPosToDig(robot, target);
+		addPos(robot, target);
+		robot.action.dig(target);
 	}
 
 	public void addHole(Coord c) {
-		if (!myDig.contains(c))
-			myDig.add(c);
+		if (myDig.add(c)) {
+			coverage.refresh(board.index(c.x, c.y));
+			digCandidates.refresh(board.index(c.x, c.y));
+		}
 	}
 
 	public void addPos(Entity e, Coord c) {
@@ -948,6 +1575,11 @@ class Support {
 		return alreadyVisited.contains(c);
 	}
 
+	public void markVisited(Coord c) {
+		if (alreadyVisited.add(c))
+			digCandidates.refresh(board.index(c.x, c.y));
+	}
+
 	public void addPosToDig(Entity e, Coord c) {
 		coveragePos.put(e.id, c);
 	}
@@ -961,3 +1593,1498 @@ class Support {
 	}
 
 }
+
+/**
+ * Radar coverage of the map, kept up to date incrementally: every cell has the
+ * number of our radars covering it, and the ore still available under radar
+ * is a running total adjusted when radars, traps, holes or ore change.
+ */
+class RadarCoverage {
+	private final Board board;
+	private final Neighborhood radarArea;
+	private final CellSet myDig;
+	// Radars and traps as seen at the last sync
+	private final CellSet radars;
+	private final CellSet traps;
+	private final int[] radarCount;
+	// Ore counted in coveredOre for every cell
+	private final int[] counted;
+	private int coveredOre;
+
+	RadarCoverage(Board board, Neighborhood radarArea, CellSet myDig) {
+		this.board = board;
+		this.radarArea = radarArea;
+		this.myDig = myDig;
+		radars = new CellSet(board.width, board.height);
+		traps = new CellSet(board.width, board.height);
+		radarCount = new int[board.cellCount()];
+		counted = new int[board.cellCount()];
+	}
+
+	// Applies the changes of the last Board.update
+	void sync() {
+		for (int k = 0; k < board.changedCount(); k++) {
+			int index = board.changedCell(k);
+			boolean radar = board.myRadarPos.contains(index);
+			if (radar && !radars.contains(index))
+				addRadar(index);
+			else if (!radar && radars.contains(index))
+				removeRadar(index);
+			boolean trap = board.myTrapPos.contains(index);
+			if (trap)
+				traps.add(index);
+			else
+				traps.remove(index);
+			refresh(index);
+		}
+	}
+
+	private void addRadar(int index) {
+		radars.add(index);
+		int[] area = radarArea.diamond(index);
+		for (int i = 0; i < area.length; i++) {
+			radarCount[area[i]]++;
+			refresh(area[i]);
+		}
+	}
+
+	private void removeRadar(int index) {
+		radars.remove(index);
+		int[] area = radarArea.diamond(index);
+		for (int i = 0; i < area.length; i++) {
+			radarCount[area[i]]--;
+			refresh(area[i]);
+		}
+	}
+
+	// Recomputes the ore counted for a cell, to call whenever its state changes
+	void refresh(int index) {
+		int ore = 0;
+		if (radarCount[index] > 0 && !traps.contains(index) && !radars.contains(index)
+				&& (!board.isHoleAt(index) || myDig.contains(index)))
+			ore = board.oreAt(index);
+		coveredOre += ore - counted[index];
+		counted[index] = ore;
+	}
+
+	boolean isCovered(int index) {
+		return radarCount[index] > 0;
+	}
+
+	int radarCount(int index) {
+		return radarCount[index];
+	}
+
+	// Ore under our radars not yet taken by the enemy and not under our items
+	int coveredOre() {
+		return coveredOre;
+	}
+}
+
+/**
+ * Known ore cells we can dig, in an indexed binary heap. Cells suspected of
+ * an enemy trap come last and cells we never dug first, then the closest to
+ * the HQ in turns, then the richest. The heap is updated as ore, holes and
+ * traps change; reserving a cell claims one unit of its ore for the current
+ * turn, so robots are not sent to the same ore.
+ */
+class DigCandidates {
+	private final Board board;
+	private final TravelTimes travel;
+	private final CellSet myDig;
+	private final CellSet visited;
+	private final CellSet suspected;
+	private final int[] heap;
+	private final int[] position;
+	private final long[] keys;
+	private int size;
+	// Units of ore claimed this turn, and the cells where they were claimed
+	private final int[] reserved;
+	private final CellSet reservedCells;
+
+	DigCandidates(Board board, TravelTimes travel, CellSet myDig, CellSet visited, CellSet suspected) {
+		this.board = board;
+		this.travel = travel;
+		this.myDig = myDig;
+		this.visited = visited;
+		this.suspected = suspected;
+		int cells = board.cellCount();
+		heap = new int[cells];
+		position = new int[cells];
+		Arrays.fill(position, -1);
+		keys = new long[cells];
+		reserved = new int[cells];
+		reservedCells = new CellSet(board.width, board.height);
+	}
+
+	// Applies the changes of the last Board.update and releases the reservations
+	void sync() {
+		for (int i = reservedCells.nextIndex(0); i >= 0; i = reservedCells.nextIndex(i + 1)) {
+			reserved[i] = 0;
+			refresh(i);
+		}
+		reservedCells.clear();
+		for (int k = 0; k < board.changedCount(); k++)
+			refresh(board.changedCell(k));
+	}
+
+	// Recomputes the place of a cell in the heap, to call whenever its state changes
+	void refresh(int index) {
+		int ore = board.oreAt(index);
+		boolean candidate = board.isKnownAt(index) && ore > reserved[index] && !board.myTrapPos.contains(index)
+				&& (!board.isHoleAt(index) || myDig.contains(index));
+		if (!candidate) {
+			if (position[index] >= 0)
+				remove(index);
+			return;
+		}
+		long key = (suspected.contains(index) ? 2 : 0) | (visited.contains(index) ? 1 : 0);
+		key = (key << 16) | travel.home(index);
+		key = (key << 16) | (0xFFFF - min(ore - reserved[index], 0xFFFF));
+		key = (key << 24) | index;
+		if (position[index] < 0) {
+			keys[index] = key;
+			heap[size] = index;
+			position[index] = size;
+			siftUp(size++);
+		} else {
+			long old = keys[index];
+			keys[index] = key;
+			if (key < old)
+				siftUp(position[index]);
+			else
+				siftDown(position[index]);
+		}
+	}
+
+	// Best cell to dig, or -1
+	int peek() {
+		return size > 0 ? heap[0] : -1;
+	}
+
+	// Claims one unit of ore of the best cell, returns the cell or -1
+	int reserveBest() {
+		int index = peek();
+		if (index >= 0)
+			reserve(index);
+		return index;
+	}
+
+	void reserve(int index) {
+		reserved[index]++;
+		reservedCells.add(index);
+		refresh(index);
+	}
+
+	// Gives back a unit of ore claimed by reserve()
+	void release(int index) {
+		if (reserved[index] > 0) {
+			reserved[index]--;
+			refresh(index);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void remove(int index) {
+		int at = position[index];
+		position[index] = -1;
+		size--;
+		if (at == size)
+			return;
+		int last = heap[size];
+		heap[at] = last;
+		position[last] = at;
+		siftUp(at);
+		siftDown(position[last]);
+	}
+
+	private void siftUp(int at) {
+		int index = heap[at];
+		while (at > 0) {
+			int parent = (at - 1) >>> 1;
+			if (keys[heap[parent]] <= keys[index])
+				break;
+			heap[at] = heap[parent];
+			position[heap[at]] = at;
+			at = parent;
+		}
+		heap[at] = index;
+		position[index] = at;
+	}
+
+	private void siftDown(int at) {
+		int index = heap[at];
+		while (true) {
+			int child = 2 * at + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+				child++;
+			if (keys[index] <= keys[heap[child]])
+				break;
+			heap[at] = heap[child];
+			position[heap[at]] = at;
+			at = child;
+		}
+		heap[at] = index;
+		position[index] = at;
+	}
+}
+
+/**
+ * Min-cost assignment of rows (robots) to columns (targets) with the Hungarian
+ * algorithm, on a primitive cost matrix allocated once. Sizes are bounded by
+ * the capacity, so a solve costs at most O(rows^2 * cols) steps.
+ */
+class TargetAssignment {
+	private static final int INF = Integer.MAX_VALUE / 2;
+
+	private final int maxCols;
+	private final int[] cost;
+	// Potentials and matching, 1-based as in the classic formulation
+	private final int[] u;
+	private final int[] v;
+	private final int[] match;
+	private final int[] way;
+	private final int[] minv;
+	private final boolean[] used;
+	private final int[] colOf;
+	private int rows;
+	private int cols;
+
+	TargetAssignment(int maxRows, int maxCols) {
+		this.maxCols = maxCols;
+		cost = new int[maxRows * maxCols];
+		u = new int[maxRows + 1];
+		v = new int[maxCols + 1];
+		match = new int[maxCols + 1];
+		way = new int[maxCols + 1];
+		minv = new int[maxCols + 1];
+		used = new boolean[maxCols + 1];
+		colOf = new int[maxRows];
+	}
+
+	// Starts a new problem, there must be at least as many columns as rows
+	void reset(int rows, int cols) {
+		if (rows > cols || cols > maxCols || rows * maxCols > cost.length)
+			throw new IllegalArgumentException(rows + "x" + cols);
+		this.rows = rows;
+		this.cols = cols;
+	}
+
+	void setCost(int row, int col, int value) {
+		cost[row * maxCols + col] = value;
+	}
+
+	void solve() {
+		Arrays.fill(u, 0, rows + 1, 0);
+		Arrays.fill(v, 0, cols + 1, 0);
+		Arrays.fill(match, 0, cols + 1, 0);
+		for (int i = 1; i <= rows; i++) {
+			match[0] = i;
+			int j0 = 0;
+			Arrays.fill(minv, 0, cols + 1, INF);
+			Arrays.fill(used, 0, cols + 1, false);
+			do {
+				used[j0] = true;
+				int i0 = match[j0];
+				int delta = INF;
+				int j1 = 0;
+				for (int j = 1; j <= cols; j++) {
+					if (!used[j]) {
+						int current = cost[(i0 - 1) * maxCols + j - 1] - u[i0] - v[j];
+						if (current < minv[j]) {
+							minv[j] = current;
+							way[j] = j0;
+						}
+						if (minv[j] < delta) {
+							delta = minv[j];
+							j1 = j;
+						}
+					}
+				}
+				for (int j = 0; j <= cols; j++) {
+					if (used[j]) {
+						u[match[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (match[j0] != 0);
+			do {
+				int j1 = way[j0];
+				match[j0] = match[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+		Arrays.fill(colOf, 0, rows, -1);
+		for (int j = 1; j <= cols; j++) {
+			if (match[j] != 0)
+				colOf[match[j] - 1] = j - 1;
+		}
+	}
+
+	int colOf(int row) {
+		return colOf[row];
+	}
+
+	int rowOf(int col) {
+		int row = match[col + 1];
+		return row - 1;
+	}
+}
+
+/**
+ * Chance of ore of the cells we have not seen, learned from the cells revealed
+ * by our radars and from the results of our own digs. Every column and every
+ * REGION x REGION block counts the cells seen in it and those with ore; the
+ * chance of a cell is the mean of the ore rates of its column and its block,
+ * both smoothed towards a prior. A dig brings up at most one unit, so the
+ * chance is also the ore expected from a dig. An observation only moves the
+ * rates of one column and one block, so the grid is updated in place.
+ */
+class OreModel {
+	static final int REGION = 5;
+	// The prior weighs as much as PRIOR_CELLS cells seen with this ore density
+	static final float PRIOR_CELLS = 4, PRIOR_DENSITY = 0.25f;
+
+	private final Board board;
+	private final TravelTimes travel;
+	private final int regionColumns;
+	// Cells already counted
+	private final CellSet seen;
+	private final int[] columnSeen;
+	private final int[] columnOre;
+	private final int[] regionSeen;
+	private final int[] regionOre;
+	private final float[] chance;
+
+	OreModel(Board board, TravelTimes travel) {
+		this.board = board;
+		this.travel = travel;
+		regionColumns = (board.width + REGION - 1) / REGION;
+		seen = new CellSet(board.width, board.height);
+		columnSeen = new int[board.width];
+		columnOre = new int[board.width];
+		regionSeen = new int[regionColumns * ((board.height + REGION - 1) / REGION)];
+		regionOre = new int[regionSeen.length];
+		chance = new float[board.cellCount()];
+		Arrays.fill(chance, PRIOR_DENSITY);
+	}
+
+	// Learns from the cells revealed by the last Board.update
+	void sync() {
+		for (int k = 0; k < board.changedCount(); k++) {
+			int index = board.changedCell(k);
+			// Una buca vista per la prima volta puo aver gia perso il suo ore
+			if (board.isKnownAt(index) && (board.oreAt(index) > 0 || !board.isHoleAt(index)))
+				observe(index, board.oreAt(index) > 0);
+		}
+	}
+
+	// Result of one of our digs, counted when the cell was not visible
+	void observeDig(int index, boolean found) {
+		if (!board.isKnownAt(index))
+			observe(index, found);
+	}
+
+	private void observe(int index, boolean ore) {
+		if (!seen.add(index))
+			return;
+		int x = index % board.width;
+		int region = regionOf(index);
+		columnSeen[x]++;
+		regionSeen[region]++;
+		if (ore) {
+			columnOre[x]++;
+			regionOre[region]++;
+		}
+		for (int i = x; i < chance.length; i += board.width)
+			refresh(i);
+		int left = region % regionColumns * REGION;
+		int top = region / regionColumns * REGION;
+		for (int y = top; y < min(top + REGION, board.height); y++) {
+			for (int i = board.index(left, y); i < board.index(min(left + REGION, board.width), y); i++)
+				refresh(i);
+		}
+	}
+
+	private void refresh(int index) {
+		int x = index % board.width;
+		int region = regionOf(index);
+		chance[index] = (rate(columnOre[x], columnSeen[x]) + rate(regionOre[region], regionSeen[region])) / 2;
+	}
+
+	private static float rate(int ore, int seen) {
+		return (ore + PRIOR_CELLS * PRIOR_DENSITY) / (seen + PRIOR_CELLS);
+	}
+
+	private int regionOf(int index) {
+		return index / board.width / REGION * regionColumns + index % board.width / REGION;
+	}
+
+	float chance(int index) {
+		return chance[index];
+	}
+
+	/**
+	 * Unknown cell, not dug and not claimed, with the most expected ore per turn
+	 * of its round trip from a cell; columns before minColumn are left out.
+	 * Returns -1 when there is none.
+	 */
+	int bestBlind(int from, int minColumn, CellSet claimed) {
+		int best = -1;
+		int bestTrip = 0;
+		for (int i = 0; i < chance.length; i++) {
+			if (i % board.width < minColumn || board.isKnownAt(i) || board.isHoleAt(i) || claimed.contains(i))
+				continue;
+			int trip = travel.roundTrip(from, i);
+			if (best < 0 || chance[i] * bestTrip > chance[best] * trip) {
+				best = i;
+				bestTrip = trip;
+			}
+		}
+		return best;
+	}
+}
+
+/**
+ * Radar placement as a max-coverage problem solved with lazy greedy (CELF).
+ * The gain of a cell is the ore promise of its radar area, the known ore
+ * cells around it plus the chance of ore of the unknown ones, minus its
+ * overlap with the area already covered by our radars. Cells claimed by the
+ * radars planned before it add no promise and count as overlap, so gains
+ * only shrink as radars are planned and a gain computed earlier is an upper
+ * bound: each cell is scored once per plan and only rescored when it reaches
+ * the top of the heap.
+ */
+class RadarPlanner {
+	// Gains are fixed point, to count fractions of an ore cell
+	private static final int GAIN_SCALE = 16;
+
+	private final int promiseWeight;
+	private final Board board;
+	private final Neighborhood radarArea;
+	private final RadarCoverage coverage;
+	private final OreModel oreModel;
+	private final CellSet suspected;
+	private final CellSet pending;
+	// Max-heap of (gain << 32 | ~index), and the round each gain was computed in
+	private final long[] heap;
+	private int size;
+	private final int[] round;
+	// Cells covered by the radars planned so far
+	private final int[] planned;
+
+	RadarPlanner(Board board, Neighborhood radarArea, RadarCoverage coverage, OreModel oreModel, CellSet suspected,
+			CellSet pending, int promiseWeight) {
+		this.promiseWeight = promiseWeight;
+		this.board = board;
+		this.radarArea = radarArea;
+		this.coverage = coverage;
+		this.oreModel = oreModel;
+		this.suspected = suspected;
+		this.pending = pending;
+		heap = new long[board.cellCount()];
+		round = new int[board.cellCount()];
+		planned = new int[board.cellCount()];
+	}
+
+	/**
+	 * Plans up to count new radars, best first, into out as cell indexes.
+	 * Returns how many were planned: cells with no positive gain are never
+	 * proposed, and planning stops with the radars found so far when the clock
+	 * expires. The radars promised to our carriers count as planned already.
+	 */
+	int plan(int count, int[] out, TurnClock clock) {
+		size = 0;
+		markPending(1);
+		for (int index = 0; index < board.cellCount(); index++) {
+			if (clock.expired())
+				break;
+			if (index % board.width == 0 || board.myRadarPos.contains(index) || board.myTrapPos.contains(index)
+					|| suspected.contains(index) || pending.contains(index))
+				continue;
+			round[index] = 0;
+			push(gain(index), index);
+		}
+		int found = 0;
+		while (found < count && size > 0 && !clock.expired()) {
+			long top = pop();
+			int gain = (int) (top >> 32);
+			int index = ~(int) top;
+			if (round[index] != found) {
+				// Stale upper bound, rescore against the radars planned since
+				round[index] = found;
+				push(gain(index), index);
+				continue;
+			}
+			if (gain <= 0)
+				break;
+			out[found++] = index;
+			int[] area = radarArea.diamond(index);
+			for (int i = 0; i < area.length; i++)
+				planned[area[i]]++;
+		}
+		for (int k = 0; k < found; k++) {
+			int[] area = radarArea.diamond(out[k]);
+			for (int i = 0; i < area.length; i++)
+				planned[area[i]]--;
+		}
+		markPending(-1);
+		return found;
+	}
+
+	private void markPending(int delta) {
+		for (int index = pending.nextIndex(0); index >= 0; index = pending.nextIndex(index + 1)) {
+			int[] area = radarArea.diamond(index);
+			for (int i = 0; i < area.length; i++)
+				planned[area[i]] += delta;
+		}
+	}
+
+	int gain(int index) {
+		int[] area = radarArea.diamond(index);
+		float promise = 0;
+		int overlap = 0;
+		for (int i = 0; i < area.length; i++) {
+			int cell = area[i];
+			if (planned[cell] > 0) {
+				overlap++;
+				continue;
+			}
+			if (board.oreAt(cell) > 0)
+				promise++;
+			else if (!board.isKnownAt(cell))
+				promise += oreModel.chance(cell);
+			if (coverage.isCovered(cell))
+				overlap++;
+		}
+		return (int) (GAIN_SCALE * (promiseWeight * promise - overlap));
+	}
+
+	private void push(int gain, int index) {
+		long entry = ((long) gain << 32) | (~index & 0xFFFFFFFFL);
+		int at = size++;
+		while (at > 0) {
+			int parent = (at - 1) >>> 1;
+			if (heap[parent] >= entry)
+				break;
+			heap[at] = heap[parent];
+			at = parent;
+		}
+		heap[at] = entry;
+	}
+
+	private long pop() {
+		long top = heap[0];
+		long last = heap[--size];
+		int at = 0;
+		while (true) {
+			int child = 2 * at + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && heap[child + 1] > heap[child])
+				child++;
+			if (last >= heap[child])
+				break;
+			heap[at] = heap[child];
+			at = child;
+		}
+		if (size > 0)
+			heap[at] = last;
+		return top;
+	}
+}
+
+/**
+ * Trap position among the enemy holes dug since the last trap: the hole with
+ * the smallest total Manhattan distance to the others. The distance splits
+ * into an x and a y part, so the totals for every column and row come from
+ * two prefix passes over per-column and per-row hole counts, and each hole is
+ * scored in O(1). New enemy holes are collected from the changed cells of
+ * every turn instead of rescanning the map.
+ */
+class TrapPlanner {
+	private final Board board;
+	private final CellSet myDig;
+	private final CellSet enemyDig;
+	private final CellSet suspected;
+	// Enemy holes not considered by a trap yet
+	private final CellSet fresh;
+	private final int[] countX;
+	private final int[] countY;
+	private final int[] costX;
+	private final int[] costY;
+
+	TrapPlanner(Board board, CellSet myDig, CellSet enemyDig, CellSet suspected) {
+		this.board = board;
+		this.myDig = myDig;
+		this.enemyDig = enemyDig;
+		this.suspected = suspected;
+		fresh = new CellSet(board.width, board.height);
+		countX = new int[board.width];
+		countY = new int[board.height];
+		costX = new int[board.width];
+		costY = new int[board.height];
+	}
+
+	// Collects the holes appeared in the last Board.update
+	void sync() {
+		for (int k = 0; k < board.changedCount(); k++) {
+			int index = board.changedCell(k);
+			if (index % board.width != 0 && board.isHoleAt(index) && !enemyDig.contains(index))
+				fresh.add(index);
+		}
+	}
+
+	private boolean isEnemyHole(int index) {
+		return board.isHoleAt(index) && !myDig.contains(index) && !board.myRadarPos.contains(index)
+				&& !board.myTrapPos.contains(index);
+	}
+
+	// Best trap cell among the new enemy holes not suspected of a trap, or -1; they then count as seen
+	int best() {
+		Arrays.fill(countX, 0);
+		Arrays.fill(countY, 0);
+		for (int i = fresh.nextIndex(0); i >= 0; i = fresh.nextIndex(i + 1)) {
+			if (!isEnemyHole(i)) {
+				// Nostre buche, radar e trappole: non sono buche nemiche
+				fresh.remove(i);
+			} else {
+				countX[i % board.width]++;
+				countY[i / board.width]++;
+			}
+		}
+		distanceSums(countX, costX);
+		distanceSums(countY, costY);
+		int best = -1;
+		int distance = 0;
+		for (int i = fresh.nextIndex(0); i >= 0; i = fresh.nextIndex(i + 1)) {
+			int total = costX[i % board.width] + costY[i / board.width];
+			if (!suspected.contains(i) && (best < 0 || total < distance)) {
+				best = i;
+				distance = total;
+			}
+			fresh.remove(i);
+			enemyDig.add(i);
+		}
+		return best;
+	}
+
+	// cost[v] = sum of count[w] * |v - w| over all w
+	private static void distanceSums(int[] count, int[] cost) {
+		int before = 0;
+		int sum = 0;
+		for (int v = 0; v < count.length; v++) {
+			cost[v] = sum;
+			before += count[v];
+			sum += before;
+		}
+		int after = 0;
+		sum = 0;
+		for (int v = count.length - 1; v >= 0; v--) {
+			cost[v] += sum;
+			after += count[v];
+			sum += after;
+		}
+	}
+}
+
+/**
+ * Where the enemy robots have been, as a heatmap decaying every turn. Each
+ * robot adds a precomputed kernel around its cell. Decay is applied to a
+ * global scale instead of the cells: values are stored divided by the scale,
+ * so a turn costs O(robots * kernel) and, since decay keeps the order of the
+ * cells, the hottest cell is maintained as kernels are added.
+ */
+class EnemyHeatmap {
+	static final float DECAY = 0.9f;
+	static final float CENTER_WEIGHT = 3f;
+	static final float NEIGHBOR_WEIGHT = 1f;
+	// Below this scale the stored values are renormalized
+	private static final float MIN_SCALE = 1e-20f;
+
+	private final int width;
+	private final float[] heat;
+	private float scale = 1f;
+	private int hottest = -1;
+	// Kernel of every cell, clipped to the map
+	private final int[][] kernelCells;
+	private final float[][] kernelWeights;
+
+	EnemyHeatmap(int width, int height) {
+		this.width = width;
+		heat = new float[width * height];
+		kernelCells = new int[heat.length][];
+		kernelWeights = new float[heat.length][];
+		int[] cells = new int[9];
+		float[] weights = new float[9];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int count = 0;
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (x + dx >= 0 && x + dx < width && y + dy >= 0 && y + dy < height) {
+							cells[count] = (y + dy) * width + x + dx;
+							weights[count] = (dx == 0 && dy == 0) ? CENTER_WEIGHT : NEIGHBOR_WEIGHT;
+							count++;
+						}
+					}
+				}
+				kernelCells[y * width + x] = Arrays.copyOf(cells, count);
+				kernelWeights[y * width + x] = Arrays.copyOf(weights, count);
+			}
+		}
+	}
+
+	// Decays the map and adds the alive robots of this turn
+	void observe(Collection<Entity> robots) {
+		scale *= DECAY;
+		if (scale < MIN_SCALE) {
+			for (int i = 0; i < heat.length; i++)
+				heat[i] *= scale;
+			scale = 1f;
+		}
+		for (Entity robot : robots) {
+			if (robot.isAlive())
+				add(robot.pos.y * width + robot.pos.x);
+		}
+	}
+
+	private void add(int index) {
+		int[] cells = kernelCells[index];
+		float[] weights = kernelWeights[index];
+		for (int k = 0; k < cells.length; k++) {
+			int cell = cells[k];
+			heat[cell] += weights[k] / scale;
+			// The HQ column is never a useful target
+			if (cell % width != 0 && (hottest < 0 || heat[cell] > heat[hottest]))
+				hottest = cell;
+		}
+	}
+
+	float heat(int index) {
+		return heat[index] * scale;
+	}
+
+	// Hottest cell outside of the HQ column, or -1 before any enemy was seen
+	int hottest() {
+		return hottest;
+	}
+}
+
+/**
+ * Cells where an enemy robot may have buried a trap, inferred from the enemy
+ * robots turn after turn. A robot that stays in the HQ column for a turn has
+ * requested an item; when it then stays on a cell away from the HQ it has
+ * dug next to it, and the holes at digging distance are suspected: those
+ * that just appeared if any, else all of them, since an item can be buried
+ * in an old hole too. Enemy items are never seen, so a suspected cell may
+ * hold a radar as well. A turn costs O(enemy robots) plus the changed cells.
+ */
+class TrapSuspicion {
+	private final Board board;
+	final CellSet suspected;
+	// Holes and ore as seen at the previous turn
+	private final CellSet holes;
+	private final int[] ore;
+	// Cell of every enemy robot by id at the previous turn, -1 if unknown, and whether it may carry an item
+	private int[] last = new int[0];
+	private boolean[] loaded = new boolean[0];
+	// Cells suspected by the last observe
+	private final int[] flagged;
+	private int flaggedCount;
+
+	TrapSuspicion(Board board) {
+		this.board = board;
+		suspected = new CellSet(board.width, board.height);
+		holes = new CellSet(board.width, board.height);
+		ore = new int[board.cellCount()];
+		flagged = new int[board.cellCount()];
+	}
+
+	// Follows the enemy robots of this turn, returns how many cells became suspected
+	int observe(Collection<Entity> robots) {
+		flaggedCount = 0;
+		for (Entity robot : robots) {
+			if (robot.id >= last.length)
+				grow(robot.id + 1);
+			if (!robot.isAlive()) {
+				last[robot.id] = -1;
+				loaded[robot.id] = false;
+				continue;
+			}
+			int cell = board.index(robot.pos.x, robot.pos.y);
+			int previous = last[robot.id];
+			last[robot.id] = cell;
+			if (cell != previous)
+				continue;
+			if (robot.pos.x == 0) {
+				loaded[robot.id] = true;
+			} else if (loaded[robot.id]) {
+				loaded[robot.id] = false;
+				suspectAround(cell);
+			}
+		}
+		for (int k = 0; k < board.changedCount(); k++) {
+			int index = board.changedCell(k);
+			if (board.isHoleAt(index))
+				holes.add(index);
+			ore[index] = board.oreAt(index);
+		}
+		return flaggedCount;
+	}
+
+	// Index of the k-th cell suspected by the last observe
+	int flagged(int k) {
+		return flagged[k];
+	}
+
+	private void suspectAround(int cell) {
+		int x = cell % board.width;
+		int y = cell / board.width;
+		boolean fresh = false;
+		for (int d = 0; d < 5; d++) {
+			int i = neighbor(x, y, d);
+			if (i >= 0 && board.isKnownAt(i) && board.oreAt(i) < ore[i])
+				return;
+			fresh |= i >= 0 && board.isHoleAt(i) && !holes.contains(i);
+		}
+		for (int d = 0; d < 5; d++) {
+			int i = neighbor(x, y, d);
+			if (i >= 0 && board.isHoleAt(i) && !(fresh && holes.contains(i)) && suspected.add(i))
+				flagged[flaggedCount++] = i;
+		}
+	}
+
+	// The cell itself for d = 0, then its four sides; -1 outside of the map
+	private int neighbor(int x, int y, int d) {
+		int nx = x + (d == 1 ? 1 : d == 2 ? -1 : 0);
+		int ny = y + (d == 3 ? 1 : d == 4 ? -1 : 0);
+		return board.cellExist(nx, ny) ? board.index(nx, ny) : -1;
+	}
+
+	private void grow(int size) {
+		int from = last.length;
+		last = Arrays.copyOf(last, size);
+		loaded = Arrays.copyOf(loaded, size);
+		Arrays.fill(last, from, size, -1);
+	}
+}
+
+/**
+ * Our side of the game as flat arrays, for lookahead within the turn: cells
+ * as bytes and bitsets, robots as parallel arrays by slot. copyFrom() clones a
+ * state with one System.arraycopy per array and apply() plays one turn of
+ * commands with the rules of the referee. Enemy robots are not simulated and
+ * digging a cell of unknown ore finds nothing.
+ */
+class GameState {
+	// Commands: the kind in the high bits, the target cell in the low ones
+	static final int WAIT = 0, MOVE = 1 << 16, DIG = 2 << 16, REQUEST_RADAR = 3 << 16, REQUEST_TRAP = 4 << 16;
+	private static final int CELL_MASK = (1 << 16) - 1;
+	// Items carried
+	static final byte NOTHING = 0, RADAR = 1, TRAP = 2, ORE = 3;
+	static final int ROBOTS = 5, ITEM_COOLDOWN = 5, MOVE_RANGE = 4;
+
+	final int width;
+	final int height;
+	private final Neighborhood radarArea;
+
+	// Cells: ore is InputReader.UNKNOWN out of radar, radarCount counts our radars covering the cell
+	final byte[] ore;
+	final byte[] radarCount;
+	final long[] hole;
+	final long[] radar;
+	final long[] trap;
+	// Robots: cell index, -1 when dead
+	final int[] robotId = new int[ROBOTS];
+	final int[] robotCell = new int[ROBOTS];
+	final byte[] robotItem = new byte[ROBOTS];
+	int robots;
+	int score;
+	int radarCooldown;
+	int trapCooldown;
+
+	// Scratch of apply(), never copied
+	private final int[] kind = new int[ROBOTS];
+	private final int[] target = new int[ROBOTS];
+	private final int[] stopAt = new int[ROBOTS];
+	private final int[] pending;
+
+	GameState(int width, int height, Neighborhood radarArea) {
+		this.width = width;
+		this.height = height;
+		this.radarArea = radarArea;
+		ore = new byte[width * height];
+		radarCount = new byte[width * height];
+		hole = new long[(width * height + 63) >>> 6];
+		radar = new long[hole.length];
+		trap = new long[hole.length];
+		pending = new int[width * height];
+	}
+
+	static int move(int cell) {
+		return MOVE | cell;
+	}
+
+	static int dig(int cell) {
+		return DIG | cell;
+	}
+
+	static int request(EntityType item) {
+		return item == EntityType.RADAR ? REQUEST_RADAR : REQUEST_TRAP;
+	}
+
+	static int commandOf(Action action, int width) {
+		if (action.command == Action.MOVE)
+			return move(action.pos.y * width + action.pos.x);
+		if (action.command == Action.DIG)
+			return dig(action.pos.y * width + action.pos.x);
+		if (action.command == Action.REQUEST)
+			return request(action.item);
+		return WAIT;
+	}
+
+	static int kindOf(int command) {
+		return command & ~CELL_MASK;
+	}
+
+	static int cellOf(int command) {
+		return command & CELL_MASK;
+	}
+
+	// Takes the state of the current turn
+	GameState load(Board board, RadarCoverage coverage) {
+		for (int i = 0; i < ore.length; i++) {
+			ore[i] = (byte) (board.isKnownAt(i) ? board.oreAt(i) : InputReader.UNKNOWN);
+			radarCount[i] = (byte) coverage.radarCount(i);
+			set(hole, i, board.isHoleAt(i));
+			set(radar, i, board.myRadarPos.contains(i));
+			set(trap, i, board.myTrapPos.contains(i));
+		}
+		robots = 0;
+		for (Entity robot : board.myTeam.robots) {
+			if (robots == ROBOTS)
+				break;
+			robotId[robots] = robot.id;
+			robotCell[robots] = robot.isAlive() ? board.index(robot.pos.x, robot.pos.y) : -1;
+			robotItem[robots] = itemOf(robot.item);
+			robots++;
+		}
+		score = board.myTeam.score;
+		radarCooldown = board.myRadarCooldown;
+		trapCooldown = board.myTrapCooldown;
+		return this;
+	}
+
+	private static byte itemOf(EntityType item) {
+		switch (item) {
+		case RADAR:
+			return RADAR;
+		case TRAP:
+			return TRAP;
+		case AMADEUSIUM:
+			return ORE;
+		default:
+			return NOTHING;
+		}
+	}
+
+	GameState copyFrom(GameState other) {
+		System.arraycopy(other.ore, 0, ore, 0, ore.length);
+		System.arraycopy(other.radarCount, 0, radarCount, 0, radarCount.length);
+		System.arraycopy(other.hole, 0, hole, 0, hole.length);
+		System.arraycopy(other.radar, 0, radar, 0, radar.length);
+		System.arraycopy(other.trap, 0, trap, 0, trap.length);
+		System.arraycopy(other.robotId, 0, robotId, 0, ROBOTS);
+		System.arraycopy(other.robotCell, 0, robotCell, 0, ROBOTS);
+		System.arraycopy(other.robotItem, 0, robotItem, 0, ROBOTS);
+		robots = other.robots;
+		score = other.score;
+		radarCooldown = other.radarCooldown;
+		trapCooldown = other.trapCooldown;
+		return this;
+	}
+
+	GameState copy() {
+		return new GameState(width, height, radarArea).copyFrom(this);
+	}
+
+	static boolean get(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	private static void set(long[] bits, int i, boolean value) {
+		if (value)
+			bits[i >>> 6] |= 1L << i;
+		else
+			bits[i >>> 6] &= ~(1L << i);
+	}
+
+	int distance(int from, int to) {
+		return abs(from % width - to % width) + abs(from / width - to / width);
+	}
+
+	// Plays one turn, commands[r] for the robot in slot r
+	void apply(int[] commands) {
+		for (int r = 0; r < robots; r++) {
+			kind[r] = robotCell[r] < 0 ? WAIT : kindOf(commands[r]);
+			target[r] = cellOf(commands[r]);
+			stopAt[r] = 0;
+			if (kind[r] == DIG && distance(robotCell[r], target[r]) > 1) {
+				kind[r] = MOVE;
+				stopAt[r] = 1;
+			}
+		}
+		for (int r = 0; r < robots; r++) {
+			if (kind[r] == DIG && get(trap, target[r]))
+				explode(target[r]);
+		}
+		for (int r = 0; r < robots; r++) {
+			if (kind[r] == DIG && robotCell[r] >= 0)
+				dig(r, target[r]);
+		}
+		for (int r = 0; r < robots; r++) {
+			if ((kind[r] != REQUEST_RADAR && kind[r] != REQUEST_TRAP) || robotCell[r] < 0)
+				continue;
+			if (robotCell[r] % width != 0) {
+				kind[r] = MOVE;
+				target[r] = robotCell[r] - robotCell[r] % width;
+			} else if (kind[r] == REQUEST_RADAR && radarCooldown == 0) {
+				robotItem[r] = RADAR;
+				radarCooldown = ITEM_COOLDOWN;
+			} else if (kind[r] == REQUEST_TRAP && trapCooldown == 0) {
+				robotItem[r] = TRAP;
+				trapCooldown = ITEM_COOLDOWN;
+			}
+		}
+		for (int r = 0; r < robots; r++) {
+			if (kind[r] == MOVE && robotCell[r] >= 0)
+				robotCell[r] = moveTowards(robotCell[r], target[r], stopAt[r]);
+		}
+		for (int r = 0; r < robots; r++) {
+			if (robotCell[r] >= 0 && robotCell[r] % width == 0 && robotItem[r] == ORE) {
+				score++;
+				robotItem[r] = NOTHING;
+			}
+		}
+		if (radarCooldown > 0)
+			radarCooldown--;
+		if (trapCooldown > 0)
+			trapCooldown--;
+	}
+
+	// Our traps go off in chain from the dug cell, destroying our robots on or next to them
+	private void explode(int first) {
+		int count = 0;
+		pending[count++] = first;
+		set(trap, first, false);
+		while (count > 0) {
+			int cell = pending[--count];
+			for (int r = 0; r < robots; r++) {
+				if (robotCell[r] >= 0 && distance(robotCell[r], cell) <= 1)
+					robotCell[r] = -1;
+			}
+			int x = cell % width;
+			int y = cell / width;
+			if (x > 0 && get(trap, cell - 1))
+				pending[count++] = explodeNext(cell - 1);
+			if (x < width - 1 && get(trap, cell + 1))
+				pending[count++] = explodeNext(cell + 1);
+			if (y > 0 && get(trap, cell - width))
+				pending[count++] = explodeNext(cell - width);
+			if (y < height - 1 && get(trap, cell + width))
+				pending[count++] = explodeNext(cell + width);
+		}
+	}
+
+	private int explodeNext(int cell) {
+		set(trap, cell, false);
+		return cell;
+	}
+
+	private void dig(int r, int cell) {
+		set(hole, cell, true);
+		if (robotItem[r] == RADAR && !get(radar, cell)) {
+			set(radar, cell, true);
+			int[] area = radarArea.diamond(cell);
+			for (int i = 0; i < area.length; i++)
+				radarCount[area[i]]++;
+		} else if (robotItem[r] == TRAP) {
+			set(trap, cell, true);
+		} else if (robotItem[r] == ORE && ore[cell] != InputReader.UNKNOWN) {
+			ore[cell]++;
+		}
+		robotItem[r] = NOTHING;
+		if (ore[cell] > 0) {
+			ore[cell]--;
+			robotItem[r] = ORE;
+		}
+	}
+
+	// Up to MOVE_RANGE cells towards the target, horizontally first, stopping at the given distance
+	private int moveTowards(int cell, int to, int stop) {
+		int x = cell % width;
+		int y = cell / width;
+		int tx = to % width;
+		int ty = to / width;
+		int steps = min(MOVE_RANGE, max(0, distance(cell, to) - stop));
+		int dx = min(steps, abs(tx - x));
+		x += Integer.signum(tx - x) * dx;
+		steps -= dx;
+		y += Integer.signum(ty - y) * min(steps, abs(ty - y));
+		return y * width + x;
+	}
+}
+
+/**
+ * Time-bounded beam search over the next turns of our robots, on GameState.
+ * Every robot without a target picks one among the nearest candidate cells
+ * with ore left, keeps it until dug and brings the ore back; the beam keeps
+ * the plans with the most ore expected delivered at the horizon, counting
+ * the ore on the way discounted by the turns it still needs. States live in
+ * a pool sized by the beam width, so a search does not allocate.
+ */
+class BeamPlanner {
+	private static final int ROBOTS = GameState.ROBOTS;
+	// Joint choices tried from the root and from every other node
+	private static final int ROOT_BRANCHES = 1024, NODE_BRANCHES = 16;
+	private static final int NEAREST = 4;
+	private static final double DISCOUNT = 0.9;
+	// Bonus of a plan keeping the target of the previous turn, against dithering between equal plans
+	private static final double KEEP_BONUS = 0.1;
+
+	private final int width;
+	private final TravelTimes travel;
+	private final int horizon;
+	private final int beamWidth;
+	private final double[] discount = new double[64];
+
+	// Node pool: a state, the current target and the first turn target of every robot
+	private final GameState[] states;
+	private final int[] targets;
+	private final int[] firsts;
+	private final double[] values;
+	private final int[] free;
+	private int freeCount;
+	private int[] beam;
+	private int beamSize;
+	// Min-heap of the best children of the level
+	private int[] next;
+	private int nextSize;
+
+	// Candidate cells, and the candidate of every cell or -1
+	private final int[] cells;
+	private final int[] candidateOf;
+	private int cellCount;
+	private final int[] claims;
+
+	// Search scratch
+	private final int[] rootCommands = new int[ROBOTS];
+	private final boolean[] planned = new boolean[ROBOTS];
+	private final int[] previous = new int[ROBOTS];
+	private final int[] deciders = new int[ROBOTS];
+	private final int[] choice = new int[ROBOTS];
+	private final int[] commands = new int[ROBOTS];
+	private final int[][] options = new int[ROBOTS][NEAREST];
+	private final int[] optionCost = new int[NEAREST];
+	private int rootScore;
+	private int level;
+	private int parent;
+	private int deciderCount;
+	private int branches;
+	private TurnClock clock;
+	private boolean expired;
+
+	BeamPlanner(Board board, Neighborhood radarArea, TravelTimes travel, int horizon, int beamWidth) {
+		width = board.width;
+		this.travel = travel;
+		this.horizon = horizon;
+		this.beamWidth = beamWidth;
+		for (int k = 0; k < discount.length; k++)
+			discount[k] = Math.pow(DISCOUNT, k);
+		int pool = 2 * beamWidth + 1;
+		states = new GameState[pool];
+		for (int s = 0; s < pool; s++)
+			states[s] = new GameState(board.width, board.height, radarArea);
+		targets = new int[pool * ROBOTS];
+		firsts = new int[pool * ROBOTS];
+		values = new double[pool];
+		free = new int[pool];
+		beam = new int[beamWidth];
+		next = new int[beamWidth];
+		cells = new int[board.cellCount()];
+		candidateOf = new int[board.cellCount()];
+		Arrays.fill(candidateOf, -1);
+		claims = new int[board.cellCount()];
+	}
+
+	/**
+	 * Plans the dig targets of the robots of the root whose slot is flagged in
+	 * dig: targetOut[slot] gets a cell among the candidates, or -1; previous
+	 * holds their targets of the last turn, or -1. The other robots play their
+	 * command for the first turn, then bring back their ore or dig where they
+	 * planned to bury their item. False when the clock expired before any plan
+	 * was complete.
+	 */
+	boolean plan(GameState root, int[] rootCommands, boolean[] dig, int[] previous, int[] candidates, int count,
+			int[] targetOut, TurnClock clock) {
+		this.clock = clock;
+		expired = false;
+		for (int k = 0; k < cellCount; k++)
+			candidateOf[cells[k]] = -1;
+		cellCount = 0;
+		for (int k = 0; k < count; k++) {
+			if (candidateOf[candidates[k]] < 0) {
+				candidateOf[candidates[k]] = cellCount;
+				cells[cellCount++] = candidates[k];
+			}
+		}
+		for (int r = 0; r < ROBOTS; r++) {
+			this.rootCommands[r] = rootCommands[r];
+			planned[r] = dig[r];
+			this.previous[r] = previous[r];
+		}
+		rootScore = root.score;
+
+		freeCount = 0;
+		for (int s = states.length - 1; s >= 1; s--)
+			free[freeCount++] = s;
+		states[0].copyFrom(root);
+		Arrays.fill(targets, 0, ROBOTS, -1);
+		Arrays.fill(firsts, 0, ROBOTS, -1);
+		values[0] = 0;
+		beam[0] = 0;
+		beamSize = 1;
+
+		for (level = 0; level < horizon && !expired; level++) {
+			nextSize = 0;
+			for (int b = 0; b < beamSize && !expired; b++)
+				expand(beam[b]);
+			if (nextSize == 0)
+				return level > 0 && best(beam, beamSize, targetOut);
+			// The children become the beam, the old beam goes back to the pool
+			for (int b = 0; b < beamSize; b++)
+				free[freeCount++] = beam[b];
+			int[] swap = beam;
+			beam = next;
+			next = swap;
+			beamSize = nextSize;
+		}
+		return best(beam, beamSize, targetOut);
+	}
+
+	private boolean best(int[] nodes, int size, int[] targetOut) {
+		if (size == 0)
+			return false;
+		int best = nodes[0];
+		for (int b = 1; b < size; b++) {
+			if (values[nodes[b]] > values[best])
+				best = nodes[b];
+		}
+		for (int r = 0; r < ROBOTS; r++)
+			targetOut[r] = firsts[best * ROBOTS + r];
+		return true;
+	}
+
+	// Children of a node: every joint choice of the robots that need a target
+	private void expand(int node) {
+		parent = node;
+		GameState state = states[node];
+		deciderCount = 0;
+		for (int r = 0; r < state.robots; r++) {
+			int target = targets[node * ROBOTS + r];
+			boolean decide = false;
+			if (level == 0)
+				decide = planned[r];
+			else if (state.robotItem[r] == GameState.NOTHING)
+				decide = target < 0 || state.ore[target] <= 0;
+			if (state.robotCell[r] >= 0 && decide)
+				deciders[deciderCount++] = r;
+			else
+				commands[r] = commandOf(state, node, r);
+		}
+		// Ore already claimed by the robots keeping their target
+		for (int k = 0; k < cellCount; k++)
+			claims[k] = 0;
+		for (int r = 0; r < state.robots; r++) {
+			int target = targets[node * ROBOTS + r];
+			if (target >= 0 && candidateOf[target] >= 0 && !isDecider(r))
+				claims[candidateOf[target]]++;
+		}
+		int cap = level == 0 ? ROOT_BRANCHES : NODE_BRANCHES;
+		branches = NEAREST;
+		while (branches > 1 && pow(branches, deciderCount) > cap)
+			branches--;
+		choose(0);
+	}
+
+	private boolean isDecider(int r) {
+		for (int d = 0; d < deciderCount; d++) {
+			if (deciders[d] == r)
+				return true;
+		}
+		return false;
+	}
+
+	private static int pow(int base, int exponent) {
+		int result = 1;
+		for (int e = 0; e < exponent; e++)
+			result *= base;
+		return result;
+	}
+
+	// Command of a robot that keeps its plan
+	private int commandOf(GameState state, int node, int r) {
+		int cell = state.robotCell[r];
+		if (level == 0)
+			return rootCommands[r];
+		if (cell < 0)
+			return GameState.WAIT;
+		if (state.robotItem[r] == GameState.ORE)
+			return GameState.move(cell - cell % width);
+		if (state.robotItem[r] != GameState.NOTHING)
+			return GameState.kindOf(rootCommands[r]) == GameState.DIG ? rootCommands[r] : GameState.WAIT;
+		int target = targets[node * ROBOTS + r];
+		return target >= 0 ? GameState.dig(target) : GameState.WAIT;
+	}
+
+	// Tries the nearest free candidates for decider d, then the next deciders
+	private void choose(int d) {
+		if (expired)
+			return;
+		if (d == deciderCount) {
+			addChild();
+			return;
+		}
+		int r = deciders[d];
+		GameState state = states[parent];
+		int from = state.robotCell[r];
+		int found = 0;
+		for (int k = 0; k < cellCount; k++) {
+			int cell = cells[k];
+			if (state.ore[cell] - claims[k] <= 0)
+				continue;
+			int cost = travel.roundTrip(from, cell);
+			// The previous target is always tried
+			if (level == 0 && cell == previous[r])
+				cost = -1;
+			if (found == branches && cost >= optionCost[branches - 1])
+				continue;
+			// Insertion in the options sorted by cost, dropping the last one when full
+			int at = found < branches ? found++ : branches - 1;
+			while (at > 0 && optionCost[at - 1] > cost) {
+				options[d][at] = options[d][at - 1];
+				optionCost[at] = optionCost[at - 1];
+				at--;
+			}
+			options[d][at] = cell;
+			optionCost[at] = cost;
+		}
+		if (found == 0) {
+			choice[d] = -1;
+			choose(d + 1);
+			return;
+		}
+		for (int o = 0; o < found; o++) {
+			int cell = options[d][o];
+			choice[d] = cell;
+			claims[candidateOf[cell]]++;
+			choose(d + 1);
+			claims[candidateOf[cell]]--;
+		}
+	}
+
+	private void addChild() {
+		if (clock.expired()) {
+			expired = true;
+			return;
+		}
+		int child = free[--freeCount];
+		GameState state = states[child].copyFrom(states[parent]);
+		System.arraycopy(targets, parent * ROBOTS, targets, child * ROBOTS, ROBOTS);
+		System.arraycopy(firsts, parent * ROBOTS, firsts, child * ROBOTS, ROBOTS);
+		for (int d = 0; d < deciderCount; d++) {
+			int r = deciders[d];
+			targets[child * ROBOTS + r] = choice[d];
+			commands[r] = choice[d] >= 0 ? GameState.dig(choice[d]) : GameState.WAIT;
+			if (level == 0)
+				firsts[child * ROBOTS + r] = choice[d];
+		}
+		state.apply(commands);
+		// Dug targets are done
+		for (int r = 0; r < state.robots; r++) {
+			if (state.robotItem[r] == GameState.ORE || state.robotCell[r] < 0)
+				targets[child * ROBOTS + r] = -1;
+		}
+		values[child] = evaluate(state, child);
+		offer(child);
+	}
+
+	// Ore delivered, plus the ore carried and targeted discounted by the turns to deliver it
+	private double evaluate(GameState state, int node) {
+		double value = state.score - rootScore;
+		for (int r = 0; r < state.robots; r++) {
+			int cell = state.robotCell[r];
+			if (cell < 0)
+				continue;
+			int target = targets[node * ROBOTS + r];
+			if (state.robotItem[r] == GameState.ORE)
+				value += discount[travel.home(cell)];
+			else if (state.robotItem[r] == GameState.NOTHING && target >= 0 && state.ore[target] > 0)
+				value += discount[travel.roundTrip(cell, target)];
+			if (previous[r] >= 0 && firsts[node * ROBOTS + r] == previous[r])
+				value += KEEP_BONUS;
+		}
+		return value;
+	}
+
+	// Keeps the child if it is among the best beamWidth of the level
+	private void offer(int child) {
+		if (nextSize < beamWidth) {
+			next[nextSize] = child;
+			siftUp(nextSize++);
+		} else if (values[child] > values[next[0]]) {
+			free[freeCount++] = next[0];
+			next[0] = child;
+			siftDown(0);
+		} else {
+			free[freeCount++] = child;
+		}
+	}
+
+	private void siftUp(int at) {
+		int node = next[at];
+		while (at > 0) {
+			int up = (at - 1) >>> 1;
+			if (values[next[up]] <= values[node])
+				break;
+			next[at] = next[up];
+			at = up;
+		}
+		next[at] = node;
+	}
+
+	private void siftDown(int at) {
+		int node = next[at];
+		while (true) {
+			int child = 2 * at + 1;
+			if (child >= nextSize)
+				break;
+			if (child + 1 < nextSize && values[next[child + 1]] < values[next[child]])
+				child++;
+			if (values[node] <= values[next[child]])
+				break;
+			next[at] = next[child];
+			at = child;
+		}
+		next[at] = node;
+	}
+}
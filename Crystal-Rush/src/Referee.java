@@ -0,0 +1,526 @@
+import static java.lang.Math.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Local referee for Crystal Rush, to play games offline. Both bots are Player
+ * instances fed through their own stdin/stdout protocol, in process: each turn
+ * the referee writes the input of a player into a reused buffer, runs one
+ * Player.turn() and parses the commands it printed.
+ *
+ * Rules resolved every turn, in this order:
+ * - DIG on a cell out of reach moves the robot towards it, like MOVE;
+ * - traps on the dug cells explode, chaining to the traps next to them, and
+ *   destroy every robot on or next to an exploding cell;
+ * - the surviving diggers dig at the same time: they destroy the enemy radars
+ *   that were on the cell, open a hole, bury the item they carry (ore goes
+ *   back into the cell) and collect one ore each; when a cell has less ore
+ *   than diggers, the units go to the two teams in turn;
+ * - REQUEST gives the item to a robot in the HQ column when its cooldown is over,
+ *   robots out of the HQ column move towards it instead;
+ * - robots move up to 4 cells, horizontally first;
+ * - robots in the HQ column deliver their ore.
+ * The game ends after 200 turns, when all the robots are dead or when no ore
+ * is left, neither in the ground nor carried.
+ *
+ * Games are deterministic for a given seed: the turn clocks of the players are
+ * disabled, so no planning phase falls back to its quick answer because of a
+ * GC or JIT pause.
+ */
+class Referee {
+	static final int WIDTH = 30;
+	static final int HEIGHT = 15;
+	static final int ROBOTS = 5;
+	static final int MAX_TURNS = 200;
+	static final int ITEM_COOLDOWN = 5;
+	static final int MOVE_RANGE = 4;
+	static final int RADAR_RANGE = 4;
+
+	// Entity types and items, as in the protocol
+	static final int NONE = -1, ALLY_ROBOT = 0, ENEMY_ROBOT = 1, RADAR = 2, TRAP = 3, ORE = 4;
+	private static final int WAIT = 0, MOVE = 1, DIG = 2, REQUEST = 3;
+
+	// Creates the bot of a seat, reading its input from in and writing its commands to out
+	interface Bot {
+		Player create(InputStream in, PrintStream out);
+	}
+
+	static final Bot DEFAULT_BOT = (in, out) -> new Player(in, out, Feed.QUIET);
+
+	static class GameResult {
+		final long seed;
+		final int[] scores;
+		final int turns;
+		final boolean[] crashed;
+
+		GameResult(long seed, int[] scores, int turns, boolean[] crashed) {
+			this.seed = seed;
+			this.scores = scores;
+			this.turns = turns;
+			this.crashed = crashed;
+		}
+
+		// 0 or 1 for the winning seat, -1 for a draw
+		int winner() {
+			if (crashed[0] != crashed[1])
+				return crashed[0] ? 1 : 0;
+			if (scores[0] == scores[1])
+				return -1;
+			return scores[0] > scores[1] ? 0 : 1;
+		}
+
+		public String toString() {
+			return "seed " + seed + ": " + scores[0] + (crashed[0] ? " (crashed)" : "") + " - " + scores[1]
+					+ (crashed[1] ? " (crashed)" : "") + " in " + turns + " turns";
+		}
+	}
+
+	/**
+	 * Input stream of a seat: the referee appends the text of a turn, the
+	 * player consumes it. The buffer is reused across turns.
+	 */
+	static class Feed extends InputStream {
+		static final PrintStream QUIET = new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+
+		private byte[] data = new byte[1 << 14];
+		private int length;
+		private int position;
+
+		void clear() {
+			length = 0;
+			position = 0;
+		}
+
+		Feed append(int value) {
+			if (value < 0) {
+				append('-');
+				value = -value;
+			}
+			if (value >= 10)
+				append(value / 10);
+			return append((char) ('0' + value % 10));
+		}
+
+		Feed append(char c) {
+			if (length == data.length)
+				data = Arrays.copyOf(data, 2 * length);
+			data[length++] = (byte) c;
+			return this;
+		}
+
+		public int read() {
+			return position < length ? data[position++] : -1;
+		}
+
+		public int read(byte[] b, int off, int len) {
+			if (position >= length)
+				return -1;
+			int n = min(len, length - position);
+			System.arraycopy(data, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		public int available() {
+			return length - position;
+		}
+	}
+
+	// A player with its input and captured output
+	private static class Seat {
+		final Feed feed = new Feed();
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+		final Player player;
+		boolean crashed;
+
+		Seat(Bot bot) {
+			player = bot.create(feed, new PrintStream(output));
+			player.clock.disable();
+		}
+	}
+
+	private final long seed;
+	private final Random random;
+	private final Neighborhood radarArea = new Neighborhood(WIDTH, HEIGHT, RADAR_RANGE);
+
+	// Map state
+	private final int[] ore = new int[WIDTH * HEIGHT];
+	private final boolean[] hole = new boolean[WIDTH * HEIGHT];
+	// Bit t set when team t has a radar or a trap on the cell
+	private final int[] radars = new int[WIDTH * HEIGHT];
+	private final int[] traps = new int[WIDTH * HEIGHT];
+	private final boolean[] visible = new boolean[WIDTH * HEIGHT];
+
+	// Robots, team t owns the robots t * ROBOTS to t * ROBOTS + ROBOTS - 1
+	private final int[] robotX = new int[2 * ROBOTS];
+	private final int[] robotY = new int[2 * ROBOTS];
+	private final int[] robotItem = new int[2 * ROBOTS];
+	private final boolean[] alive = new boolean[2 * ROBOTS];
+	private final int[] command = new int[2 * ROBOTS];
+	private final int[] targetX = new int[2 * ROBOTS];
+	private final int[] targetY = new int[2 * ROBOTS];
+	private final int[] requested = new int[2 * ROBOTS];
+	// Distance at which a move stops: 1 for robots walking to a dig
+	private final int[] stopAt = new int[2 * ROBOTS];
+	private final int[] pending = new int[WIDTH * HEIGHT];
+	// Robots digging the same cell, and those whose dig is resolved this turn
+	private final int[] diggers = new int[2 * ROBOTS];
+	private final boolean[] collected = new boolean[2 * ROBOTS];
+
+	private final int[] scores = new int[2];
+	private final int[][] cooldowns = new int[2][2];
+	private int turn;
+
+	Referee(long seed) {
+		this.seed = seed;
+		random = new Random(seed);
+		generate();
+	}
+
+	int turn() {
+		return turn;
+	}
+
+	int score(int team) {
+		return scores[team];
+	}
+
+	private void generate() {
+		int veins = 20 + random.nextInt(10);
+		for (int v = 0; v < veins; v++) {
+			int cx = 3 + random.nextInt(WIDTH - 4);
+			int cy = random.nextInt(HEIGHT);
+			int radius = 1 + random.nextInt(2);
+			for (int y = max(0, cy - radius); y <= min(HEIGHT - 1, cy + radius); y++) {
+				for (int x = max(1, cx - radius); x <= min(WIDTH - 1, cx + radius); x++) {
+					if (abs(x - cx) + abs(y - cy) <= radius && random.nextInt(10) < 6)
+						ore[y * WIDTH + x] = min(3, ore[y * WIDTH + x] + 1 + random.nextInt(3));
+				}
+			}
+		}
+		for (int team = 0; team < 2; team++) {
+			int[] rows = new int[HEIGHT];
+			for (int y = 0; y < HEIGHT; y++)
+				rows[y] = y;
+			for (int k = HEIGHT - 1; k > 0; k--) {
+				int j = random.nextInt(k + 1);
+				int t = rows[k];
+				rows[k] = rows[j];
+				rows[j] = t;
+			}
+			for (int k = 0; k < ROBOTS; k++) {
+				int r = team * ROBOTS + k;
+				robotX[r] = 0;
+				robotY[r] = rows[k];
+				robotItem[r] = NONE;
+				alive[r] = true;
+			}
+		}
+	}
+
+	GameResult play(Bot first, Bot second) {
+		Seat[] seats = { new Seat(first), new Seat(second) };
+		while (!isOver()) {
+			for (int team = 0; team < 2; team++)
+				runTurn(seats[team], team);
+			resolve();
+			turn++;
+		}
+		// The game may end before the last turn: the players report their metrics now
+		for (Seat seat : seats) {
+			if (!seat.crashed)
+				seat.player.endGame();
+		}
+		return new GameResult(seed, scores.clone(), turn, new boolean[] { seats[0].crashed, seats[1].crashed });
+	}
+
+	boolean isOver() {
+		if (turn >= MAX_TURNS)
+			return true;
+		boolean anyAlive = false;
+		boolean oreLeft = false;
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			anyAlive |= alive[r];
+			oreLeft |= alive[r] && robotItem[r] == ORE;
+		}
+		for (int i = 0; i < ore.length && !oreLeft; i++)
+			oreLeft = ore[i] > 0;
+		return !anyAlive || !oreLeft;
+	}
+
+	private void runTurn(Seat seat, int team) {
+		for (int k = 0; k < ROBOTS; k++)
+			command[team * ROBOTS + k] = WAIT;
+		if (seat.crashed)
+			return;
+		seat.feed.clear();
+		if (turn == 0)
+			seat.feed.append(WIDTH).append(' ').append(HEIGHT).append('\n');
+		writeInput(seat.feed, team);
+		seat.output.reset();
+		try {
+			if (turn == 0)
+				seat.player.init();
+			seat.player.turn();
+			seat.player.out.flush();
+			readCommands(seat.output.toString(), team);
+		} catch (RuntimeException e) {
+			seat.crashed = true;
+		}
+	}
+
+	private void writeInput(Feed feed, int team) {
+		Arrays.fill(visible, false);
+		int radarCount = 0;
+		int trapCount = 0;
+		for (int i = 0; i < ore.length; i++) {
+			if ((radars[i] & (1 << team)) != 0) {
+				radarCount++;
+				int[] area = radarArea.diamond(i);
+				for (int k = 0; k < area.length; k++)
+					visible[area[k]] = true;
+			}
+			if ((traps[i] & (1 << team)) != 0)
+				trapCount++;
+		}
+		feed.append(scores[team]).append(' ').append(scores[1 - team]).append('\n');
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				int i = y * WIDTH + x;
+				if (x > 0)
+					feed.append(' ');
+				if (visible[i])
+					feed.append(ore[i]);
+				else
+					feed.append('?');
+				feed.append(' ').append(hole[i] ? '1' : '0');
+			}
+			feed.append('\n');
+		}
+		feed.append(2 * ROBOTS + radarCount + trapCount).append(' ').append(cooldowns[team][0]).append(' ')
+				.append(cooldowns[team][1]).append('\n');
+		for (int k = 0; k < 2 * ROBOTS; k++) {
+			// Our robots first, then the enemy ones
+			int r = (team * ROBOTS + k) % (2 * ROBOTS);
+			int type = k < ROBOTS ? ALLY_ROBOT : ENEMY_ROBOT;
+			int item = (type == ALLY_ROBOT && alive[r]) ? robotItem[r] : NONE;
+			feed.append(r).append(' ').append(type).append(' ');
+			feed.append(alive[r] ? robotX[r] : -1).append(' ').append(alive[r] ? robotY[r] : -1).append(' ');
+			feed.append(item).append('\n');
+		}
+		for (int i = 0; i < ore.length; i++) {
+			if ((radars[i] & (1 << team)) != 0)
+				writeItem(feed, itemId(RADAR, team, i), RADAR, i);
+		}
+		for (int i = 0; i < ore.length; i++) {
+			if ((traps[i] & (1 << team)) != 0)
+				writeItem(feed, itemId(TRAP, team, i), TRAP, i);
+		}
+	}
+
+	private static void writeItem(Feed feed, int id, int type, int cell) {
+		feed.append(id).append(' ').append(type).append(' ').append(cell % WIDTH).append(' ').append(cell / WIDTH);
+		feed.append(' ').append(NONE).append('\n');
+	}
+
+	// Ids of buried items, stable for as long as the item exists
+	private static int itemId(int type, int team, int cell) {
+		return 2 * ROBOTS + ((type - RADAR) * 2 + team) * WIDTH * HEIGHT + cell;
+	}
+
+	private void readCommands(String output, int team) {
+		String[] lines = output.split("\n");
+		for (int k = 0; k < ROBOTS && k < lines.length; k++) {
+			int r = team * ROBOTS + k;
+			String[] tokens = lines[k].trim().split(" ");
+			try {
+				if (tokens[0].equals("MOVE") || tokens[0].equals("DIG")) {
+					command[r] = tokens[0].equals("MOVE") ? MOVE : DIG;
+					targetX[r] = Integer.parseInt(tokens[1]);
+					targetY[r] = Integer.parseInt(tokens[2]);
+					if (targetX[r] < 0 || targetY[r] < 0 || targetX[r] >= WIDTH || targetY[r] >= HEIGHT)
+						command[r] = WAIT;
+				} else if (tokens[0].equals("REQUEST")) {
+					command[r] = REQUEST;
+					requested[r] = tokens[1].equals("RADAR") ? RADAR : TRAP;
+				}
+			} catch (RuntimeException e) {
+				command[r] = WAIT;
+			}
+		}
+	}
+
+	void resolve() {
+		// Digs out of reach become moves
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			stopAt[r] = 0;
+			if (command[r] == DIG && distance(r, targetX[r], targetY[r]) > 1) {
+				command[r] = MOVE;
+				stopAt[r] = 1;
+			}
+		}
+		// Traps on the dug cells
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == DIG) {
+				int cell = targetY[r] * WIDTH + targetX[r];
+				if (traps[cell] != 0)
+					explode(cell);
+			}
+		}
+		// Digs happen at the same time: enemy radars are destroyed before any item is buried
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == DIG)
+				radars[targetY[r] * WIDTH + targetX[r]] &= 1 << (r / ROBOTS);
+		}
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == DIG)
+				bury(r, r / ROBOTS, targetY[r] * WIDTH + targetX[r]);
+		}
+		Arrays.fill(collected, false);
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == DIG && !collected[r])
+				collect(targetY[r] * WIDTH + targetX[r]);
+		}
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == REQUEST) {
+				if (robotX[r] != 0) {
+					command[r] = MOVE;
+					targetX[r] = 0;
+					targetY[r] = robotY[r];
+					continue;
+				}
+				int team = r / ROBOTS;
+				int slot = requested[r] == RADAR ? 0 : 1;
+				if (cooldowns[team][slot] == 0) {
+					robotItem[r] = requested[r];
+					cooldowns[team][slot] = ITEM_COOLDOWN;
+				}
+			}
+		}
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == MOVE)
+				move(r, targetX[r], targetY[r], stopAt[r]);
+		}
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && robotX[r] == 0 && robotItem[r] == ORE) {
+				scores[r / ROBOTS]++;
+				robotItem[r] = NONE;
+			}
+		}
+		for (int team = 0; team < 2; team++) {
+			for (int slot = 0; slot < 2; slot++) {
+				if (cooldowns[team][slot] > 0)
+					cooldowns[team][slot]--;
+			}
+		}
+	}
+
+	private void explode(int first) {
+		int count = 0;
+		pending[count++] = first;
+		traps[first] = 0;
+		while (count > 0) {
+			int cell = pending[--count];
+			int x = cell % WIDTH;
+			int y = cell / WIDTH;
+			for (int r = 0; r < 2 * ROBOTS; r++) {
+				if (alive[r] && distance(r, x, y) <= 1)
+					alive[r] = false;
+			}
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					int nx = x + dx;
+					int ny = y + dy;
+					if (abs(dx) + abs(dy) == 1 && nx >= 0 && ny >= 0 && nx < WIDTH && ny < HEIGHT
+							&& traps[ny * WIDTH + nx] != 0) {
+						traps[ny * WIDTH + nx] = 0;
+						pending[count++] = ny * WIDTH + nx;
+					}
+				}
+			}
+		}
+	}
+
+	private void bury(int r, int team, int cell) {
+		hole[cell] = true;
+		if (robotItem[r] == RADAR)
+			radars[cell] |= 1 << team;
+		else if (robotItem[r] == TRAP)
+			traps[cell] |= 1 << team;
+		else if (robotItem[r] == ORE)
+			ore[cell]++;
+		robotItem[r] = NONE;
+	}
+
+	/**
+	 * Shares the ore of a cell among all the robots digging it this turn. When there is not enough for all of them, the units go to the two
+	 * teams in turn, starting from a team drawn by the seeded generator, so no
+	 * team is favoured by the robot ids.
+	 */
+	private void collect(int cell) {
+		int count = 0;
+		for (int r = 0; r < 2 * ROBOTS; r++) {
+			if (alive[r] && command[r] == DIG && targetY[r] * WIDTH + targetX[r] == cell) {
+				diggers[count++] = r;
+				collected[r] = true;
+			}
+		}
+		int team = count > ore[cell] ? random.nextInt(2) : 0;
+		for (int taken = 0; taken < count && ore[cell] > 0; taken++) {
+			// Next robot of the team, of the other team when it has none left
+			int k = next(count, team);
+			if (k < 0)
+				k = next(count, 1 - team);
+			robotItem[diggers[k]] = ORE;
+			diggers[k] = -1;
+			ore[cell]--;
+			team = 1 - team;
+		}
+	}
+
+	// First digger of the team still without ore, -1 if none
+	private int next(int count, int team) {
+		for (int k = 0; k < count; k++) {
+			if (diggers[k] >= 0 && diggers[k] / ROBOTS == team)
+				return k;
+		}
+		return -1;
+	}
+
+	// Moves a robot towards a cell, horizontally first, stopping at the given distance
+	private void move(int r, int x, int y, int stop) {
+		int steps = min(MOVE_RANGE, max(0, distance(r, x, y) - stop));
+		int dx = min(steps, abs(x - robotX[r]));
+		robotX[r] += (int) signum(x - robotX[r]) * dx;
+		steps -= dx;
+		robotY[r] += (int) signum(y - robotY[r]) * min(steps, abs(y - robotY[r]));
+	}
+
+	private int distance(int r, int x, int y) {
+		return abs(robotX[r] - x) + abs(robotY[r] - y);
+	}
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		long start = System.nanoTime();
+		long turns = 0;
+		int[] wins = new int[3];
+		for (int g = 0; g < games; g++) {
+			GameResult result = new Referee(seed + g).play(DEFAULT_BOT, DEFAULT_BOT);
+			System.out.println(result);
+			turns += result.turns;
+			wins[result.winner() + 1]++;
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, wins %d - %d, draws %d, %.0f turns/s%n", games, wins[1], wins[2], wins[0],
+				turns / seconds);
+	}
+}
@@ -0,0 +1,324 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Binary log of the input of a game, to replay real games locally.
+ *
+ *   java Replay record game.log      plays as the bot on stdin/stdout, logging its input
+ *   java Replay game seed game.log   logs the first seat of a local Referee game
+ *   java Replay play game.log [n]    replays the log n times at full speed, the
+ *                                    commands of the last run on stdout, timings on stderr
+ *
+ * Log format, all numbers as unsigned LEB128 varints, signed ones zigzag encoded:
+ *   header: magic "CRL1", width, height
+ *   turn:   my score, opponent score,
+ *           changed cells count, then per cell the index gap from the previous
+ *           changed cell and (ore + 1) << 1 | hole, ore -1 for unknown,
+ *           entity count, radar cooldown, trap cooldown,
+ *           per entity: id, type, x, y, item, signed
+ * A cell is changed when it differs from the previous turn; before the first
+ * turn all cells are unknown and without hole.
+ */
+class Replay {
+	private static final int MAGIC = 'C' << 24 | 'R' << 16 | 'L' << 8 | '1';
+
+	// Copies what a player reads into a second stream, parsed by the log writer
+	static class Tee extends FilterInputStream {
+		private byte[] copy = new byte[1 << 12];
+		private final byte[] single = new byte[1];
+		private int length;
+		private int position;
+
+		final InputStream copied = new InputStream() {
+			public int read() {
+				return position < length ? copy[position++] : -1;
+			}
+
+			public int read(byte[] b, int off, int len) {
+				if (position >= length)
+					return -1;
+				int n = Math.min(len, length - position);
+				System.arraycopy(copy, position, b, off, n);
+				position += n;
+				return n;
+			}
+		};
+
+		Tee(InputStream in) {
+			super(in);
+		}
+
+		public int read() throws IOException {
+			int c = super.read();
+			if (c >= 0) {
+				single[0] = (byte) c;
+				append(single, 0, 1);
+			}
+			return c;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0)
+				append(b, off, n);
+			return n;
+		}
+
+		private void append(byte[] b, int off, int n) {
+			if (position == length)
+				position = length = 0;
+			if (length + n > copy.length)
+				copy = Arrays.copyOf(copy, Math.max(2 * copy.length, length + n));
+			System.arraycopy(b, off, copy, length, n);
+			length += n;
+		}
+	}
+
+	// Input of the turns in memory, swapped without copying
+	static class Script extends InputStream {
+		private byte[] data = new byte[0];
+		private int position;
+
+		void load(byte[] turn) {
+			data = turn;
+			position = 0;
+		}
+
+		public int read() {
+			return position < data.length ? data[position++] : -1;
+		}
+
+		public int read(byte[] b, int off, int len) {
+			if (position >= data.length)
+				return -1;
+			int n = Math.min(len, data.length - position);
+			System.arraycopy(data, position, b, off, n);
+			position += n;
+			return n;
+		}
+	}
+
+	// Encodes the turns parsed from the text, the first one starting with the map size
+	static class Writer {
+		private final OutputStream out;
+		private final InputReader in;
+		private int[] ore;
+		private boolean[] hole;
+
+		Writer(OutputStream out, InputStream text) {
+			this.out = new BufferedOutputStream(out);
+			in = new InputReader(text);
+		}
+
+		void writeTurn() throws IOException {
+			if (ore == null) {
+				int width = in.nextInt();
+				int height = in.nextInt();
+				writeInt(MAGIC);
+				writeVarint(width);
+				writeVarint(height);
+				ore = new int[width * height];
+				Arrays.fill(ore, InputReader.UNKNOWN);
+				hole = new boolean[width * height];
+			}
+			writeVarint(in.nextInt());
+			writeVarint(in.nextInt());
+			int[] changed = new int[ore.length];
+			int count = 0;
+			for (int i = 0; i < ore.length; i++) {
+				int cellOre = in.nextOre();
+				boolean cellHole = in.nextInt() != 0;
+				if (cellOre != ore[i] || cellHole != hole[i]) {
+					ore[i] = cellOre;
+					hole[i] = cellHole;
+					changed[count++] = i;
+				}
+			}
+			writeVarint(count);
+			int previous = 0;
+			for (int k = 0; k < count; k++) {
+				int i = changed[k];
+				writeVarint(i - previous);
+				writeVarint((ore[i] + 1) << 1 | (hole[i] ? 1 : 0));
+				previous = i;
+			}
+			int entities = in.nextInt();
+			writeVarint(entities);
+			writeVarint(in.nextInt());
+			writeVarint(in.nextInt());
+			for (int e = 0; e < 5 * entities; e++)
+				writeSigned(in.nextInt());
+			out.flush();
+		}
+
+		private void writeInt(int value) throws IOException {
+			for (int shift = 24; shift >= 0; shift -= 8)
+				out.write(value >>> shift);
+		}
+
+		private void writeVarint(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.write(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			out.write(value);
+		}
+
+		private void writeSigned(int value) throws IOException {
+			writeVarint(value << 1 ^ value >> 31);
+		}
+	}
+
+	// Decodes the turns back into the text sent by the referee
+	static class Reader implements Closeable {
+		private final InputStream in;
+		private final int width;
+		private final int[] ore;
+		private final boolean[] hole;
+		private boolean first = true;
+
+		Reader(InputStream in) throws IOException {
+			this.in = new BufferedInputStream(in);
+			int magic = 0;
+			for (int k = 0; k < 4; k++)
+				magic = magic << 8 | readByte();
+			if (magic != MAGIC)
+				throw new IOException("Not a turn log");
+			width = readVarint();
+			int height = readVarint();
+			ore = new int[width * height];
+			Arrays.fill(ore, InputReader.UNKNOWN);
+			hole = new boolean[width * height];
+		}
+
+		// Text of the next turn, null at the end of the log
+		byte[] nextTurn() throws IOException {
+			in.mark(1);
+			if (in.read() < 0)
+				return null;
+			in.reset();
+			Referee.Feed text = new Referee.Feed();
+			if (first)
+				text.append(width).append(' ').append(ore.length / width).append('\n');
+			first = false;
+			text.append(readVarint()).append(' ').append(readVarint()).append('\n');
+			int count = readVarint();
+			for (int k = 0, i = 0; k < count; k++) {
+				i += readVarint();
+				int cell = readVarint();
+				ore[i] = (cell >> 1) - 1;
+				hole[i] = (cell & 1) != 0;
+			}
+			for (int i = 0; i < ore.length; i++) {
+				if (ore[i] == InputReader.UNKNOWN)
+					text.append('?');
+				else
+					text.append(ore[i]);
+				text.append(' ').append(hole[i] ? '1' : '0').append(i % width == width - 1 ? '\n' : ' ');
+			}
+			int entities = readVarint();
+			text.append(entities).append(' ').append(readVarint()).append(' ').append(readVarint()).append('\n');
+			for (int e = 0; e < entities; e++) {
+				for (int f = 0; f < 5; f++)
+					text.append(readSigned()).append(f == 4 ? '\n' : ' ');
+			}
+			byte[] turn = new byte[text.available()];
+			text.read(turn, 0, turn.length);
+			return turn;
+		}
+
+		private int readByte() throws IOException {
+			int b = in.read();
+			if (b < 0)
+				throw new EOFException("Truncated turn log");
+			return b;
+		}
+
+		private int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if (b < 0x80)
+					return value;
+			}
+		}
+
+		private int readSigned() throws IOException {
+			int value = readVarint();
+			return value >>> 1 ^ -(value & 1);
+		}
+
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	// Player logging its input after every turn
+	static Player recorder(InputStream in, PrintStream out, PrintStream err, OutputStream log) {
+		Tee tee = new Tee(in);
+		Writer writer = new Writer(log, tee.copied);
+		return new Player(tee, out, err) {
+			void turn() {
+				super.turn();
+				try {
+					writer.writeTurn();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+
+	static Referee.Bot recorder(OutputStream log) {
+		return (in, out) -> recorder(in, out, Referee.Feed.QUIET, log);
+	}
+
+	static List<byte[]> load(InputStream log) throws IOException {
+		List<byte[]> turns = new ArrayList<>();
+		try (Reader reader = new Reader(log)) {
+			for (byte[] turn = reader.nextTurn(); turn != null; turn = reader.nextTurn())
+				turns.add(turn);
+		}
+		return turns;
+	}
+
+	// Feeds the turns to a fresh Player, returns its latency metrics
+	static TurnMetrics play(List<byte[]> turns, PrintStream out) {
+		Script script = new Script();
+		Player player = new Player(script, out, Referee.Feed.QUIET);
+		for (int t = 0; t < turns.size(); t++) {
+			script.load(turns.get(t));
+			if (t == 0)
+				player.init();
+			player.turn();
+		}
+		out.flush();
+		return player.metrics;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 2 && args[0].equals("record")) {
+			// run() returns at the end of the input
+			try (OutputStream log = new FileOutputStream(args[1])) {
+				recorder(System.in, System.out, System.err, log).run();
+			}
+		} else if (args.length >= 3 && args[0].equals("game")) {
+			try (OutputStream log = new FileOutputStream(args[2])) {
+				System.out.println(new Referee(Long.parseLong(args[1])).play(recorder(log), Referee.DEFAULT_BOT));
+			}
+		} else if (args.length >= 2 && args[0].equals("play")) {
+			List<byte[]> turns = load(new FileInputStream(args[1]));
+			int runs = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+			long start = System.nanoTime();
+			TurnMetrics metrics = null;
+			for (int r = 0; r < runs; r++)
+				metrics = play(turns, r == runs - 1 ? System.out : Referee.Feed.QUIET);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.err.printf("%d turns x %d runs, %.0f turns/s%n", turns.size(), runs, turns.size() * runs / seconds);
+			metrics.report(System.err);
+		} else {
+			System.err.println("Usage: java Replay record <log> | game <seed> <log> | play <log> [runs]");
+		}
+	}
+}
@@ -0,0 +1,131 @@
+import static java.lang.Math.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parameter sweep over local games. Every candidate Params plays the same
+ * seeded games against the arena defaults, once from each seat, with all the
+ * games of the sweep spread over the cores by a ForkJoinPool. For every
+ * candidate it reports the win rate and our ore delivered per turn, both with
+ * a 95% confidence interval.
+ *
+ * Usage: java Tournament [games per candidate] [first seed]
+ */
+class Tournament {
+	private static final double Z = 1.96;
+
+	static final double[] COVERAGE_RATIOS = { 0.2, 0.3, 0.4 };
+	static final int[] PROMISE_WEIGHTS = { 2, 3, 4 };
+	// First column open to blind digs
+	static final int[] BLIND_DIG_COLUMNS = { 1, 3, 5 };
+	static final int[] PLAN_HORIZONS = { 0, 6 };
+	static final int[][][] RADAR_LAYOUTS = { Params.DEFAULT_RADAR_LAYOUT,
+			{ { 5, 7 }, { 10, 3 }, { 10, 11 }, { 15, 7 }, { 20, 3 }, { 20, 11 }, { 25, 7 } } };
+
+	// Outcome of the games of one candidate
+	static class Score {
+		final Params params;
+		int games;
+		int wins;
+		int draws;
+		double oreSum;
+		double oreSquares;
+
+		Score(Params params) {
+			this.params = params;
+		}
+
+		synchronized void add(Referee.GameResult result, int seat) {
+			games++;
+			int winner = result.winner();
+			if (winner == seat)
+				wins++;
+			else if (winner < 0)
+				draws++;
+			double orePerTurn = (double) result.scores[seat] / max(1, result.turns);
+			oreSum += orePerTurn;
+			oreSquares += orePerTurn * orePerTurn;
+		}
+
+		// Draws count as half a win
+		double winRate() {
+			return (wins + 0.5 * draws) / games;
+		}
+
+		// Wilson score interval of the win rate, lower bound for -1 and upper bound for +1
+		double winRateBound(int sign) {
+			double p = winRate();
+			double denominator = 1 + Z * Z / games;
+			double center = (p + Z * Z / (2 * games)) / denominator;
+			double half = Z * sqrt(p * (1 - p) / games + Z * Z / (4.0 * games * games)) / denominator;
+			return center + sign * half;
+		}
+
+		double orePerTurn() {
+			return oreSum / games;
+		}
+
+		double orePerTurnMargin() {
+			double mean = orePerTurn();
+			double variance = games > 1 ? (oreSquares - games * mean * mean) / (games - 1) : 0;
+			return Z * sqrt(max(0, variance) / games);
+		}
+	}
+
+	static List<Params> candidates() {
+		List<Params> all = new ArrayList<>();
+		for (double ratio : COVERAGE_RATIOS)
+			for (int weight : PROMISE_WEIGHTS)
+				for (int column : BLIND_DIG_COLUMNS)
+					for (int[][] layout : RADAR_LAYOUTS)
+						for (int horizon : PLAN_HORIZONS)
+							all.add(new Params(ratio, weight, column, layout, horizon, Params.DEFAULT.beamWidth));
+		return all;
+	}
+
+	static Referee.Bot bot(Params params) {
+		return (in, out) -> new Player(in, out, Referee.Feed.QUIET, params);
+	}
+
+	static List<Score> run(List<Params> candidates, int games, long firstSeed, ForkJoinPool pool)
+			throws InterruptedException, ExecutionException {
+		Referee.Bot baseline = bot(Params.DEFAULT);
+		List<Score> scores = new ArrayList<>();
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (Params params : candidates) {
+			Score score = new Score(params);
+			scores.add(score);
+			Referee.Bot candidate = bot(params);
+			for (int g = 0; g < games; g++) {
+				long seed = firstSeed + g / 2;
+				int seat = g % 2;
+				tasks.add(() -> {
+					Referee.GameResult result = seat == 0 ? new Referee(seed).play(candidate, baseline)
+							: new Referee(seed).play(baseline, candidate);
+					score.add(result, seat);
+					return null;
+				});
+			}
+		}
+		for (Future<Void> future : pool.invokeAll(tasks))
+			future.get();
+		return scores;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		long start = System.nanoTime();
+		List<Score> scores = run(candidates(), games, seed, pool);
+		pool.shutdown();
+		scores.sort((a, b) -> Double.compare(b.winRate(), a.winRate()));
+		for (Score score : scores) {
+			System.out.printf("win %.3f [%.3f, %.3f]  ore/turn %.3f +- %.3f  %s%n", score.winRate(),
+					score.winRateBound(-1), score.winRateBound(1), score.orePerTurn(), score.orePerTurnMargin(),
+					score.params);
+		}
+		System.out.printf("%d games in %.1f s%n", scores.size() * games, (System.nanoTime() - start) / 1e9);
+	}
+}